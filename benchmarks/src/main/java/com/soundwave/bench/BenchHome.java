@@ -0,0 +1,49 @@
+package com.soundwave.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Отдельный домашний каталог для бенчмарков, чтобы LibraryManager не трогал настоящий ~/.soundwave.
+ * LibraryManager читает user.home при загрузке класса, поэтому {@link #init()} вызывается
+ * в @Setup до первого обращения к нему.
+ */
+public final class BenchHome {
+    // Держим ссылку, иначе логгер соберёт GC вместе с настроенным уровнем
+    private static final Logger TAGGER_LOG = Logger.getLogger("org.jaudiotagger");
+
+    private BenchHome() {
+    }
+
+    public static Path init() {
+        // jaudiotagger пишет в java.util.logging по строке на каждый разобранный файл
+        TAGGER_LOG.setLevel(Level.WARNING);
+        Path home = Paths.get(System.getProperty("soundwave.bench.home", "target/bench-home")).toAbsolutePath();
+        System.setProperty("user.home", home.toString());
+        return home.resolve(".soundwave");
+    }
+
+    /** Удаляет данные приложения, оставшиеся от прошлой итерации. */
+    public static void wipe() {
+        Path storage = init();
+        if (!Files.exists(storage)) return;
+        try (Stream<Path> files = Files.walk(storage)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.soundwave.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Запуск бенчмарков с теми же аргументами, что у JMH, но результаты по умолчанию пишутся
+ * в JSON: results/jmh-ВЕРСИЯ_ПЛЕЕРА-ДАТА.json. Так их можно сравнивать между релизами.
+ * Пример: java -jar benchmarks.jar IndexBenchmark -p size=10000
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        if (cli.getResultFormat().hasValue() || cli.getResult().hasValue()) {
+            new Runner(cli).run();
+            return;
+        }
+
+        // Версию плеера кладёт в манифест maven-shade-plugin
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path results = Paths.get("results");
+        Files.createDirectories(results);
+        Path file = results.resolve("jmh-" + (version != null ? version : "dev") + "-" + stamp + ".json");
+
+        Options options = new OptionsBuilder().parent(cli)
+                .resultFormat(ResultFormatType.JSON)
+                .result(file.toString())
+                .build();
+        new Runner(options).run();
+        System.out.println("Результаты: " + file.toAbsolutePath());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетическая библиотека для бенчмарков. Детерминирована: одинаковый размер — одинаковые треки.
+ * Файлы — маленькие, но настоящие MP3 (ID3v2.4 + тихие кадры), FLAC (STREAMINFO + Vorbis comment)
+ * и WAV (LIST/INFO), которые jaudiotagger разбирает так же, как пользовательские.
+ * Готовый корпус кладётся в target/corpus/размер и переиспользуется между запусками.
+ */
+public final class Corpus {
+    private static final String[] WORDS = {
+            "love", "night", "city", "fire", "dream", "blue", "heart", "river", "gold", "storm",
+            "shadow", "light", "summer", "road", "echo", "wild", "silver", "rain", "moon", "stone",
+            "ночь", "город", "звезда", "дорога", "ветер", "море", "небо", "песня", "café", "señor"
+    };
+    private static final int TRACKS_PER_ALBUM = 12;
+    private static final int ALBUMS_PER_ARTIST = 4;
+
+    private Corpus() {
+    }
+
+    /** Метаданные трека номер i: одинаковые для файлов и для песен в памяти. */
+    public record Track(String title, String artist, String album, int seconds) {}
+
+    public static Track track(int i) {
+        Random random = new Random(i * 31L + 7);
+        int album = i / TRACKS_PER_ALBUM;
+        int artist = album / ALBUMS_PER_ARTIST;
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+        return new Track(title, "Artist " + WORDS[artist % WORDS.length] + " " + artist,
+                "Album " + WORDS[album % WORDS.length] + " " + album, 120 + random.nextInt(240));
+    }
+
+    /** Песни без файлов — для индексов, которым диск не нужен. */
+    public static List<Song> songs(int count) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) songs.add(song(i));
+        return songs;
+    }
+
+    /** Песня номер i со своими строками и путём, как после разбора тегов. */
+    public static Song song(int i) {
+        Track t = track(i);
+        return new Song(Paths.get("/music").resolve(folder(i)).resolve(i + ".mp3"),
+                t.title(), t.artist(), t.album(), t.seconds());
+    }
+
+    /** Песни с путями к файлам корпуса из {@link #files(int)}. */
+    public static List<Song> fileSongs(Path root, int count) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Track t = track(i);
+            songs.add(new Song(root.resolve(folder(i)).resolve(i + extension(i)),
+                    t.title(), t.artist(), t.album(), t.seconds()));
+        }
+        return songs;
+    }
+
+    /**
+     * Папка с count файлами (MP3, FLAC и WAV по очереди), по папке на альбом. Создаётся один раз.
+     */
+    public static Path files(int count) {
+        Path root = Paths.get(System.getProperty("soundwave.corpus", "target/corpus"), String.valueOf(count))
+                .toAbsolutePath();
+        Path marker = root.resolve(".complete");
+        if (Files.exists(marker)) return root;
+        try {
+            for (int i = 0; i < count; i++) {
+                Track t = track(i);
+                Path dir = root.resolve(folder(i));
+                Files.createDirectories(dir);
+                byte[] content = switch (i % 3) {
+                    case 0 -> mp3(t);
+                    case 1 -> flac(t);
+                    default -> wav(t);
+                };
+                Files.write(dir.resolve(i + extension(i)), content);
+            }
+            Files.writeString(marker, String.valueOf(count));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return root;
+    }
+
+    /** Папки называются номерами: имена файлов в ASCII не зависят от кодировки файловой системы. */
+    private static String folder(int i) {
+        int album = i / TRACKS_PER_ALBUM;
+        return "artist-" + album / ALBUMS_PER_ARTIST + "/album-" + album;
+    }
+
+    private static String extension(int i) {
+        return switch (i % 3) {
+            case 0 -> ".mp3";
+            case 1 -> ".flac";
+            default -> ".wav";
+        };
+    }
+
+    /** ID3v2.4 с UTF-8 и 20 тихих кадров MPEG1 Layer III 128 кбит/с, 44.1 кГц (около полсекунды). */
+    static byte[] mp3(Track t) {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        textFrame(frames, "TIT2", t.title());
+        textFrame(frames, "TPE1", t.artist());
+        textFrame(frames, "TALB", t.album());
+        byte[] body = frames.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{'I', 'D', '3', 4, 0, 0});
+        out.writeBytes(syncsafe(body.length));
+        out.writeBytes(body);
+        byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = (byte) 0xC4; // Моно
+        for (int i = 0; i < 20; i++) out.writeBytes(frame);
+        return out.toByteArray();
+    }
+
+    private static void textFrame(ByteArrayOutputStream out, String id, String text) {
+        byte[] value = text.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(id.getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(syncsafe(value.length + 1));
+        out.writeBytes(new byte[]{0, 0, 3}); // Флаги, кодировка UTF-8
+        out.writeBytes(value);
+    }
+
+    private static byte[] syncsafe(int size) {
+        return new byte[]{(byte) (size >> 21 & 0x7f), (byte) (size >> 14 & 0x7f),
+                (byte) (size >> 7 & 0x7f), (byte) (size & 0x7f)};
+    }
+
+    /** STREAMINFO, Vorbis comment и немного байт вместо аудиокадров: тегам этого достаточно. */
+    static byte[] flac(Track t) {
+        int sampleRate = 44100;
+        long totalSamples = (long) t.seconds() * sampleRate;
+        ByteBuffer info = ByteBuffer.allocate(34);
+        info.putShort((short) 4096).putShort((short) 4096);
+        info.put(new byte[3]).put(new byte[3]); // Размеры кадров неизвестны
+        // 20 бит частота, 3 бита каналы-1, 5 бит бит-на-сэмпл-1, 36 бит число сэмплов
+        long packed = (long) sampleRate << 44 | 1L << 41 | 15L << 36 | totalSamples;
+        info.putLong(packed);
+        info.put(new byte[16]); // MD5 неизвестен
+
+        ByteBuffer comment = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] vendor = "soundwave-bench".getBytes(StandardCharsets.UTF_8);
+        comment.putInt(vendor.length).put(vendor).putInt(3);
+        for (String field : new String[]{"TITLE=" + t.title(), "ARTIST=" + t.artist(), "ALBUM=" + t.album()}) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            comment.putInt(bytes.length).put(bytes);
+        }
+        comment.flip();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{'f', 'L', 'a', 'C'});
+        out.writeBytes(new byte[]{0, 0, 0, 34});
+        out.writeBytes(info.array());
+        out.writeBytes(new byte[]{(byte) 0x84, 0, (byte) (comment.limit() >> 8), (byte) comment.limit()});
+        out.write(comment.array(), 0, comment.limit());
+        out.writeBytes(new byte[2048]);
+        return out.toByteArray();
+    }
+
+    /** 16-битное моно 8 кГц, 0.2 с тишины и теги в LIST/INFO. */
+    static byte[] wav(Track t) {
+        byte[] info = infoChunk(t);
+        int dataBytes = 8000 * 2 / 5;
+        ByteBuffer out = ByteBuffer.allocate(12 + 24 + info.length + 8 + dataBytes).order(ByteOrder.LITTLE_ENDIAN);
+        out.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(out.capacity() - 8)
+                .put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        out.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 1).putInt(8000).putInt(16000)
+                .putShort((short) 2).putShort((short) 16);
+        out.put(info);
+        out.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataBytes);
+        return out.array();
+    }
+
+    private static byte[] infoChunk(Track t) {
+        ByteArrayOutputStream fields = new ByteArrayOutputStream();
+        infoField(fields, "INAM", t.title());
+        infoField(fields, "IART", t.artist());
+        infoField(fields, "IPRD", t.album());
+        byte[] body = fields.toByteArray();
+        ByteBuffer chunk = ByteBuffer.allocate(12 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(4 + body.length)
+                .put("INFO".getBytes(StandardCharsets.US_ASCII)).put(body);
+        return chunk.array();
+    }
+
+    private static void infoField(ByteArrayOutputStream out, String id, String text) {
+        byte[] value = (text + '\0').getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(value.length);
+        out.writeBytes(header.array());
+        out.writeBytes(value);
+        if (value.length % 2 != 0) out.write(0); // Чанки RIFF выравниваются по двум байтам
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryManager;
+import com.soundwave.library.MetadataCache;
+import com.soundwave.library.TrackStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Сколько кучи занимает библиотека. Меряется разница занятой кучи после сборки мусора:
+ * - песни как объекты (LinkedHashMap путь → Song, как было в LibraryIndex) против одного {@link TrackStore};
+ * - LibraryManager целиком: хранилище, поиск, дерево исполнителей, номера треков и пути в репозитории;
+ * - кэш метаданных, который репозиторий держит после сканирования (у песен корпуса нет файлов,
+ *   поэтому сам LibraryManager его не наполняет — меряется отдельно);
+ * - список всех песен в интерфейсе: раньше ObservableList из Song, теперь ключи треков.
+ * Накладные расходы — всё сверх UTF-8 текста имён файлов и названий.
+ * Запуск: java -cp target/benchmarks.jar com.soundwave.bench.HeapFootprint [треков, по умолчанию 250000]
+ */
+public final class HeapFootprint {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        long text = 0;
+        for (int i = 0; i < count; i++) {
+            Song song = Corpus.song(i);
+            text += song.filePath().getFileName().toString().getBytes(StandardCharsets.UTF_8).length
+                    + song.title().getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        long before = usedAfterGc();
+        Map<Path, Song> objects = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            Song song = Corpus.song(i);
+            objects.put(song.filePath(), song);
+        }
+        report("Song + LinkedHashMap", usedAfterGc() - before, text, count);
+        objects = null;
+
+        before = usedAfterGc();
+        TrackStore store = new TrackStore();
+        for (int i = 0; i < count; i++) store.upsert(Corpus.song(i));
+        report("TrackStore", usedAfterGc() - before, text, count);
+        System.out.printf(Locale.ROOT, "%-24s %8.1f байт/трек по массивам (%d треков)%n",
+                "TrackStore (расчёт)", store.footprintBytes() / (double) count, store.size());
+        store = null;
+
+        before = usedAfterGc();
+        MetadataCache cache = new MetadataCache(Path.of("metadata.bin"));
+        BasicFileAttributes attrs = new FixedAttributes();
+        for (int i = 0; i < count; i++) cache.put(Corpus.song(i), attrs);
+        report("Кэш метаданных", usedAfterGc() - before, text, count);
+        cache = null;
+
+        // Папка данных LibraryManager берётся из user.home при загрузке класса
+        Path home = Files.createTempDirectory("soundwave-heap");
+        System.setProperty("user.home", home.toString());
+        try {
+            measureManager(count, text);
+        } finally {
+            deleteTree(home);
+        }
+    }
+
+    private static void measureManager(int count, long text) {
+        long before = usedAfterGc();
+        LibraryManager manager = new LibraryManager();
+        List<Song> songs = Corpus.songs(count);
+        manager.updateLibrary(songs);
+        songs = null;
+        report("LibraryManager", usedAfterGc() - before, text, count);
+
+        before = usedAfterGc();
+        List<Song> uiSongs = new ArrayList<>(manager.getSongs());
+        report("Интерфейс: список Song", usedAfterGc() - before, text, count);
+        uiSongs = null;
+
+        before = usedAfterGc();
+        int[] uiKeys = manager.getSongKeys();
+        report("Интерфейс: ключи", usedAfterGc() - before, 0, count);
+        System.out.printf(Locale.ROOT, "(%d ключей)%n", uiKeys.length);
+        manager.shutdown();
+    }
+
+    private static void report(String name, long bytes, long text, int count) {
+        System.out.printf(Locale.ROOT, "%-24s %8.1f байт/трек, из них накладные %6.1f%n",
+                name, bytes / (double) count, (bytes - text) / (double) count);
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /** Атрибуты, одинаковые для всех песен корпуса: файлов у них нет, а кэшу нужны размер и время. */
+    private static final class FixedAttributes implements BasicFileAttributes {
+        private static final FileTime TIME = FileTime.fromMillis(1_700_000_000_000L);
+
+        @Override public FileTime lastModifiedTime() { return TIME; }
+        @Override public FileTime lastAccessTime() { return TIME; }
+        @Override public FileTime creationTime() { return TIME; }
+        @Override public boolean isRegularFile() { return true; }
+        @Override public boolean isDirectory() { return false; }
+        @Override public boolean isSymbolicLink() { return false; }
+        @Override public boolean isOther() { return false; }
+        @Override public long size() { return 4_000_000; }
+        @Override public Object fileKey() { return null; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Album;
+import com.soundwave.core.Song;
+import com.soundwave.library.HierarchyIndex;
+import com.soundwave.library.LibraryIndex;
+import com.soundwave.library.SearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Индексы в памяти: построение дерева исполнитель/альбом и поискового индекса,
+ * выборка альбомов и обновление одной песни в большой библиотеке. Запросы поиска — в {@link SearchBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Song> songs;
+    private int[] keys; // Ключи песен из songs в хранилище library
+    private LibraryIndex library;
+    private HierarchyIndex hierarchy;
+    private String someArtist;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        songs = Corpus.songs(size);
+        library = new LibraryIndex();
+        hierarchy = new HierarchyIndex(library);
+        library.addListener(hierarchy);
+        library.addListener(new SearchIndex(library));
+        library.upsertAll(songs);
+        keys = new int[songs.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = library.key(songs.get(i).filePath());
+        someArtist = songs.get(songs.size() / 2).artist();
+    }
+
+    @Benchmark
+    public List<String> buildHierarchy() {
+        HierarchyIndex index = new HierarchyIndex(library);
+        for (int i = 0; i < keys.length; i++) index.onAdded(keys[i], songs.get(i));
+        return index.artists();
+    }
+
+    @Benchmark
+    public List<Album> albumsOfArtist() {
+        return hierarchy.albums(someArtist);
+    }
+
+    @Benchmark
+    public SearchIndex buildSearchIndex() {
+        SearchIndex index = new SearchIndex(library);
+        for (int i = 0; i < keys.length; i++) index.onAdded(keys[i], songs.get(i));
+        return index;
+    }
+
+    /** Повторный скан одного файла: замена песни по пути с обновлением всех производных индексов. */
+    @Benchmark
+    public void upsertExisting(Blackhole bh) {
+        Song song = songs.get(next);
+        next = (next + 1) % songs.size();
+        bh.consume(library.upsert(song));
+    }
+}
\ No newline at end of file
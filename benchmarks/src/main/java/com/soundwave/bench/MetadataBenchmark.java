@@ -0,0 +1,53 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Разбор тегов одного файла через LibraryManager.extractMetadata, отдельно для каждого формата.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataBenchmark {
+    @Param({"mp3", "flac", "wav"})
+    public String format;
+
+    private LibraryManager manager;
+    private Path[] files;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchHome.wipe();
+        Path root = Corpus.files(1000);
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> matching = paths.filter(p -> p.toString().endsWith("." + format)).toList();
+            files = matching.toArray(new Path[0]);
+        }
+        manager = new LibraryManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    public Song extractMetadata() {
+        Path file = files[next];
+        next = (next + 1) % files.length;
+        return manager.extractMetadata(file);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Playlist;
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Плейлисты через публичный API LibraryManager: 500 плейлистов по entries треков
+ * из библиотеки в entries * 2 песен. Основной замер — 500 × 5000; плейлисты по 100 тыс. треков
+ * занимают на диске 200 МБ и собираются заново на каждой итерации, поэтому только по запросу: -p entries=100000. Каждый вызов проходит тот же путь, что и действие в интерфейсе,
+ * вместе с таблицей номеров треков и блокировкой библиотеки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaylistBenchmark {
+    private static final int PLAYLISTS = 500;
+
+    @Param({"1000", "5000", "10000"})
+    public int entries;
+
+    private LibraryManager manager;
+    private List<Song> songs;
+    private int nextRemoved;
+    private int nextAdded;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchHome.wipe();
+        BenchHome.init();
+        songs = Corpus.songs(entries * 2);
+        LibraryManager setup = new LibraryManager();
+        setup.updateLibrary(songs);
+        Random random = new Random(42);
+        for (int p = 0; p < PLAYLISTS; p++) {
+            List<Song> picked = new ArrayList<>(entries);
+            for (int i = 0; i < entries; i++) picked.add(songs.get(random.nextInt(songs.size())));
+            setup.createPlaylist(name(p));
+            setup.addSongsToPlaylist(name(p), picked);
+        }
+        setup.shutdown();
+
+        manager = new LibraryManager();
+        manager.updateLibrary(songs);
+        nextRemoved = 0;
+        nextAdded = 0;
+    }
+
+    /** Старт приложения: таблица номеров треков и заголовки плейлистов, сами списки не читаются. */
+    @Benchmark
+    public int loadHeaders() {
+        LibraryManager started = new LibraryManager();
+        int count = started.getPlaylists().size();
+        started.shutdown();
+        return count;
+    }
+
+    /** Первое открытие плейлиста после старта: чтение номеров треков одного файла. */
+    @Benchmark
+    public int openPlaylist() {
+        LibraryManager started = new LibraryManager();
+        int count = started.getPlaylists().get(PLAYLISTS / 2).getTrackIds().length;
+        started.shutdown();
+        return count;
+    }
+
+    /** Песни плейлиста для показа: номера → пути → песни из индекса библиотеки. */
+    @Benchmark
+    public int playlistSongs() {
+        return manager.getPlaylistSongs(manager.getPlaylists().get(PLAYLISTS / 2)).size();
+    }
+
+    /** Добавление песни в плейлист: дозапись её номера в один файл. */
+    @Benchmark
+    public int addSong() {
+        int n = nextAdded++;
+        Playlist playlist = manager.getPlaylists().get(n % PLAYLISTS);
+        manager.addSongToPlaylist(playlist.getName(), songs.get(n % songs.size()));
+        return playlist.size();
+    }
+
+    /** Удаление песни из библиотеки: переписываются только плейлисты, где она есть. */
+    @Benchmark
+    public int removeSongEverywhere() {
+        manager.removeSong(songs.get(nextRemoved++ % songs.size()));
+        return nextRemoved;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (manager != null) manager.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void wipe() {
+        BenchHome.wipe();
+    }
+
+    private static String name(int p) {
+        return "Плейлист " + p;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение и загрузка библиотеки: JSON-снимок library.json и кэш метаданных.
+ * load — холодный старт новым репозиторием: снимок читается потоково, каждый файл сверяется с ним
+ * по размеру и времени изменения.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Path storage;
+    private List<Song> songs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchHome.wipe();
+        storage = Files.createDirectories(BenchHome.init());
+        Path root = Corpus.files(size);
+        songs = Corpus.fileSongs(root, size);
+        LibraryRepository repository = new LibraryRepository(storage);
+        repository.save(songs);
+        repository.close();
+    }
+
+    @Benchmark
+    public int save() {
+        LibraryRepository repository = new LibraryRepository(storage);
+        repository.save(songs);
+        repository.close();
+        return songs.size();
+    }
+
+    @Benchmark
+    public int load() {
+        LibraryRepository repository = new LibraryRepository(storage);
+        int loaded = repository.load().size();
+        repository.close();
+        return loaded;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слияние повторного скана с библиотекой, до и после индекса по пути. Все файлы уже есть в библиотеке,
+ * скан возвращает их заново. removeIfList — как было в LibraryManager: на каждую песню removeIf
+ * по всему списку со сравнением путей строками, O(N·M). libraryIndex — замена по пути в {@link LibraryIndex}.
+ * Обход диска и теги сюда не входят — полный повторный скан в {@link ScanBenchmark#rescan}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RescanMergeBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int size;
+
+    private List<Song> scanned;
+    private List<Song> currentSongs;
+    private LibraryIndex index;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        scanned = Corpus.songs(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        currentSongs = new ArrayList<>(scanned);
+        index = new LibraryIndex();
+        index.upsertAll(scanned);
+    }
+
+    @Benchmark
+    public int removeIfList() {
+        for (Song newSong : scanned) {
+            currentSongs.removeIf(s -> s.filePath().toString().equals(newSong.filePath().toString()));
+            currentSongs.add(newSong);
+        }
+        return currentSongs.size();
+    }
+
+    @Benchmark
+    public int libraryIndex() {
+        index.upsertAll(scanned);
+        return index.size();
+    }
+}
\ No newline at end of file
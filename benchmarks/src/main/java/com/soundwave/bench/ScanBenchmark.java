@@ -0,0 +1,77 @@
+package com.soundwave.bench;
+
+import com.soundwave.library.LibraryManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полное сканирование папки: обход, разбор тегов jaudiotagger'ом, слияние в индекс и запись журнала.
+ * scan — в пустую библиотеку, rescan — повторный проход по уже известным файлам.
+ * Слияние повторного скана до и после индекса по пути — в {@link RescanMergeBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ScanBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Folder {
+        @Param({"1000", "10000", "50000", "100000"})
+        public int size;
+
+        Path root;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            BenchHome.init();
+            root = Corpus.files(size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyLibrary {
+        LibraryManager manager;
+
+        @Setup(Level.Iteration)
+        public void open() {
+            BenchHome.wipe();
+            manager = new LibraryManager();
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            manager.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ScannedLibrary {
+        LibraryManager manager;
+
+        @Setup(Level.Trial)
+        public void open(Folder folder) {
+            BenchHome.wipe();
+            manager = new LibraryManager();
+            manager.scanDirectory(folder.root);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            manager.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int scan(Folder folder, EmptyLibrary library) {
+        return library.manager.scanDirectory(folder.root).size();
+    }
+
+    @Benchmark
+    public int rescan(Folder folder, ScannedLibrary library) {
+        return library.manager.scanDirectory(folder.root).size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryIndex;
+import com.soundwave.library.SearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по мере набора: одно слово, префиксы двух слов, кириллица, запрос без диакритики и промах.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"love", "ni ci", "ночь", "cafe", "nothing"})
+    public String query;
+
+    private SearchIndex search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LibraryIndex library = new LibraryIndex();
+        search = new SearchIndex(library);
+        library.addListener(search);
+        library.upsertAll(Corpus.songs(size));
+    }
+
+    @Benchmark
+    public List<Song> search() {
+        return search.search(query);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.soundwave.bench;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.TrackStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Колоночное хранилище треков: заполнение, поиск по пути и сборка песен обратно.
+ * Сколько оно занимает в куче — в {@link HeapFootprint}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackStoreBenchmark {
+    @Param({"10000", "250000"})
+    public int size;
+
+    private List<Song> songs;
+    private TrackStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        songs = Corpus.songs(size);
+        store = new TrackStore();
+        for (Song song : songs) store.upsert(song);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public TrackStore fill() {
+        TrackStore fresh = new TrackStore();
+        for (Song song : songs) fresh.upsert(song);
+        return fresh;
+    }
+
+    @Benchmark
+    public Song getByPath() {
+        Path path = songs.get(next).filePath();
+        next = (next + 1) % songs.size();
+        return store.get(path);
+    }
+
+    /** Повторный скан файла: старая строка помечается удалённой, новая дописывается в конец. */
+    @Benchmark
+    public int upsertExisting() {
+        Song song = songs.get(next);
+        next = (next + 1) % songs.size();
+        return store.upsert(song);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Song> snapshot() {
+        return store.songs();
+    }
+}
\ No newline at end of file
@@ -1,31 +1,41 @@
 package com.soundwave;
 
+import com.soundwave.gui.MainController;
+import com.soundwave.metrics.Metrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.net.URL;
 
 public class App extends Application {
+    private static final Logger logger = LoggerFactory.getLogger(App.class);
+
+    private MainController controller;
 
     @Override
     public void start(Stage stage) {
-        System.out.println("[DEBUG] Приложение запускается...");
+        logger.debug("Приложение запускается...");
+        Metrics.start();
         
         String fxmlPath = "/com/soundwave/gui/main-view.fxml";
         URL fxmlLocation = getClass().getResource(fxmlPath);
 
         if (fxmlLocation == null) {
-            System.err.println("[ERROR] ФАЙЛ НЕ НАЙДЕН: " + fxmlPath);
+            logger.error("Файл не найден: {}", fxmlPath);
             return;
         }
 
         try {
-            System.out.println("[DEBUG] Файл найден: " + fxmlLocation);
+            logger.debug("Файл найден: {}", fxmlLocation);
             FXMLLoader loader = new FXMLLoader(fxmlLocation);
             Parent root = loader.load();
+            controller = loader.getController();
             
             // --- УСТАНОВКА ИКОНКИ ОКНА ---
             try {
@@ -33,12 +43,12 @@ public class App extends Application {
                 URL iconUrl = getClass().getResource(iconPath);
                 if (iconUrl != null) {
                     stage.getIcons().add(new Image(iconUrl.toString()));
-                    System.out.println("[DEBUG] Иконка загружена успешно!");
+                    logger.debug("Иконка загружена успешно");
                 } else {
-                    System.out.println("[DEBUG] Файл иконки не найден в ресурсах: " + iconPath);
+                    logger.debug("Файл иконки не найден в ресурсах: {}", iconPath);
                 }
             } catch (Exception e) {
-                System.out.println("[DEBUG] Ошибка при установке иконки: " + e.getMessage());
+                logger.debug("Ошибка при установке иконки: {}", e.getMessage());
             }
             // -----------------------------
 
@@ -47,14 +57,19 @@ public class App extends Application {
             stage.setScene(scene);
             stage.show();
             
-            System.out.println("[DEBUG] Окно успешно отображено!");
+            logger.debug("Окно успешно отображено");
             
         } catch (Exception e) {
-            System.err.println("[ERROR] Ошибка внутри FXML или Контроллера:");
-            e.printStackTrace();
+            logger.error("Ошибка внутри FXML или контроллера", e);
         }
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) controller.shutdown();
+        Metrics.stop();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
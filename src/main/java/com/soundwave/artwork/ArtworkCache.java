@@ -0,0 +1,243 @@
+package com.soundwave.artwork;
+
+import com.soundwave.core.Song;
+import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Обложки альбомов: извлечение и уменьшение в фоне, миниатюры фиксированных размеров на диске
+ * и LRU-кэш готовых Image в памяти, ограниченный по байтам.
+ * Одна обложка на альбом: ключ — папка, исполнитель и альбом трека.
+ * Миниатюра на диске и отметка об отсутствии обложки (файл .none) действуют, пока они не старше
+ * самого трека и его папки; изменившиеся треки сбрасываются из памяти через {@link #invalidate}.
+ */
+public class ArtworkCache {
+    private static final Logger logger = LoggerFactory.getLogger(ArtworkCache.class);
+
+    /** Размеры миниатюр: запрошенный размер округляется вверх до ближайшего. */
+    private static final int[] BUCKETS = {64, 160, 512};
+    public static final long DEFAULT_MEMORY_BYTES = 32L * 1024 * 1024;
+    private static final long MISSING_ENTRY_BYTES = 64;
+
+    private final Path dir;
+    private final long maxMemoryBytes;
+    private final ArtworkExtractor extractor = new ArtworkExtractor();
+
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+    private final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    /** image == null — обложки нет. */
+    private record Entry(Image image, long bytes) {}
+
+    public ArtworkCache(Path dir, long maxMemoryBytes) {
+        this.dir = dir;
+        this.maxMemoryBytes = maxMemoryBytes;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "artwork-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY); // Прокрутка и звук важнее
+            return t;
+        });
+    }
+
+    /**
+     * Обложка из памяти без ожидания или null, если её там нет (или у альбома нет обложки).
+     */
+    public Image getIfCached(Song song, int size) {
+        synchronized (memory) {
+            Entry entry = memory.get(key(song, bucket(size)));
+            return entry != null ? entry.image() : null;
+        }
+    }
+
+    /**
+     * Обложка нужного размера. Результат приходит из фонового потока; null — обложки нет.
+     * Одновременные запросы одной обложки выполняются один раз.
+     */
+    public CompletableFuture<Image> load(Song song, int size) {
+        int bucket = bucket(size);
+        String key = key(song, bucket);
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) return CompletableFuture.completedFuture(entry.image());
+        }
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        CompletableFuture<Image> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) return existing;
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(produce(song, bucket, key));
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, future);
+            future.complete(null); // Приложение закрывается
+        }
+        return future;
+    }
+
+    /**
+     * Забывает обложку альбома трека в памяти (все размеры): теги или обложка в папке изменились.
+     * Миниатюры на диске перепроверятся по времени изменения при следующей загрузке.
+     */
+    public void invalidate(Song song) {
+        synchronized (memory) {
+            for (int bucket : BUCKETS) {
+                Entry old = memory.remove(key(song, bucket));
+                if (old != null) memoryBytes -= old.bytes();
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Image produce(Song song, int bucket, String key) {
+        Image image = null;
+        try {
+            image = readThumbnail(song, bucket, key);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Не удалось подготовить обложку для {}", song.filePath(), e);
+        }
+        remember(key, image);
+        return image;
+    }
+
+    private Image readThumbnail(Song song, int bucket, String key) throws IOException {
+        Path bucketDir = dir.resolve(String.valueOf(bucket));
+        Path thumbnail = bucketDir.resolve(key + ".jpg");
+        Path missing = bucketDir.resolve(key + ".none");
+
+        FileTime changed = sourceModified(song);
+        if (isFresh(thumbnail, changed)) {
+            return new Image(thumbnail.toUri().toString());
+        }
+        if (isFresh(missing, changed)) {
+            return null;
+        }
+
+        Files.createDirectories(bucketDir);
+        byte[] source = extractor.extract(song.filePath());
+        BufferedImage decoded = source != null ? ImageIO.read(new ByteArrayInputStream(source)) : null;
+        if (decoded == null) {
+            Files.deleteIfExists(missing);
+            Files.createFile(missing);
+            return null;
+        }
+
+        byte[] jpeg = encode(scale(decoded, bucket));
+        Path tmp = bucketDir.resolve(key + ".tmp");
+        Files.write(tmp, jpeg);
+        Files.move(tmp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(missing);
+        return new Image(new ByteArrayInputStream(jpeg));
+    }
+
+    /**
+     * Когда в последний раз менялся источник обложки: сам трек (встроенная картинка) или его папка
+     * (появилась или заменена cover.jpg). null — узнать не удалось, сохранённому результату верим.
+     */
+    private static FileTime sourceModified(Song song) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(song.filePath());
+            Path folder = song.filePath().getParent();
+            if (folder != null) {
+                FileTime folderModified = Files.getLastModifiedTime(folder);
+                if (folderModified.compareTo(modified) > 0) modified = folderModified;
+            }
+            return modified;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isFresh(Path cached, FileTime source) throws IOException {
+        if (!Files.exists(cached)) return false;
+        return source == null || source.compareTo(Files.getLastModifiedTime(cached)) <= 0;
+    }
+
+    /** Вписывает картинку в квадрат size×size; меньшие картинки не растягиваются. */
+    private static BufferedImage scale(BufferedImage src, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(src.getWidth(), src.getHeight()));
+        int w = Math.max(1, (int) Math.round(src.getWidth() * ratio));
+        int h = Math.max(1, (int) Math.round(src.getHeight() * ratio));
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "jpg", out)) throw new IOException("Нет кодировщика JPEG");
+        return out.toByteArray();
+    }
+
+    private void remember(String key, Image image) {
+        long bytes = image != null ? (long) image.getWidth() * (long) image.getHeight() * 4 : MISSING_ENTRY_BYTES;
+        synchronized (memory) {
+            Entry old = memory.put(key, new Entry(image, bytes));
+            if (old != null) memoryBytes -= old.bytes();
+            memoryBytes += bytes;
+            Iterator<Entry> it = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+                memoryBytes -= it.next().bytes();
+                it.remove();
+            }
+        }
+    }
+
+    private static int bucket(int size) {
+        for (int b : BUCKETS) {
+            if (size <= b) return b;
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    private static String key(Song song, int bucket) {
+        Path folder = song.filePath().getParent();
+        String id = (folder != null ? folder.toAbsolutePath().toString() : "") + File.separator
+                + song.artist() + '\n' + song.album();
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] hash = sha1.digest(id.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 10) + "-" + bucket;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
\ No newline at end of file
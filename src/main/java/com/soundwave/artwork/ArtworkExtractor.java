@@ -0,0 +1,59 @@
+package com.soundwave.artwork;
+
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.images.Artwork;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Достаёт исходную обложку трека: сначала встроенную в теги, потом картинку из папки альбома.
+ */
+class ArtworkExtractor {
+    // Имена файлов обложек в порядке предпочтения
+    private static final List<String> FOLDER_IMAGES = List.of("cover", "folder", "front", "album");
+    private static final List<String> EXTENSIONS = List.of(".jpg", ".jpeg", ".png");
+
+    /** Байты картинки или null, если обложки нет. */
+    byte[] extract(Path audioFile) {
+        byte[] embedded = embedded(audioFile);
+        return embedded != null ? embedded : fromFolder(audioFile.getParent());
+    }
+
+    private static byte[] embedded(Path audioFile) {
+        try {
+            Tag tag = AudioFileIO.read(audioFile.toFile()).getTag();
+            Artwork artwork = tag != null ? tag.getFirstArtwork() : null;
+            byte[] data = artwork != null ? artwork.getBinaryData() : null;
+            return data != null && data.length > 0 ? data : null;
+        } catch (Exception e) {
+            return null; // Битые теги — не повод оставаться без обложки из папки
+        }
+    }
+
+    private static byte[] fromFolder(Path dir) {
+        if (dir == null) return null;
+        Path best = null;
+        int bestRank = Integer.MAX_VALUE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                int dot = name.lastIndexOf('.');
+                if (dot < 0 || !EXTENSIONS.contains(name.substring(dot))) continue;
+                int rank = FOLDER_IMAGES.indexOf(name.substring(0, dot));
+                if (rank >= 0 && rank < bestRank) {
+                    best = file;
+                    bestRank = rank;
+                }
+            }
+            return best != null ? Files.readAllBytes(best) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,377 @@
+package com.soundwave.cli;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.soundwave.core.Song;
+import com.soundwave.library.BatchListener;
+import com.soundwave.library.DuplicateGroup;
+import com.soundwave.library.HierarchyIndex;
+import com.soundwave.library.LibraryManager;
+import com.soundwave.metrics.Metrics;
+import com.soundwave.metrics.TimingSnapshot;
+import com.soundwave.waveform.WaveformCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Библиотека без окна: сканирование, статистика и выгрузка. JavaFX не загружается,
+ * поэтому работает на сервере без дисплея — например, чтобы один раз собрать библиотеку
+ * на мощной машине и разложить ~/.soundwave по рабочим местам.
+ * Данные пишутся в stdout, прогресс и логи — в stderr.
+ */
+public final class LibraryCli {
+    static {
+        // До первого логгера: логи в stderr, чтобы не смешивались с выгрузкой в stdout
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-cli.xml");
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(LibraryCli.class);
+
+    private static final String USAGE = """
+            Использование: java -cp soundwave-player.jar com.soundwave.cli.LibraryCli <команда> [параметры]
+
+              scan [папка...] [--threads N] [--fingerprints] [--waveforms]
+                  Сканирует папки и сохраняет библиотеку в ~/.soundwave. Без папок пересканирует
+                  все известные и убирает треки, чьих файлов больше нет.
+                  --fingerprints  заранее посчитать отпечатки для поиска дубликатов
+                  --waveforms     заранее построить формы волны
+              stats
+                  Треки, исполнители, альбомы, общая длительность.
+              export <файл|-> [--format jsonl|csv]
+                  Выгружает библиотеку построчно. Формат по расширению файла, для "-" (stdout) — jsonl.
+
+            Другая папка данных: -Duser.home=<путь>.
+            """;
+
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+    // jaudiotagger пишет в java.util.logging строку на каждый разобранный чанк; ссылка держит настройку уровня
+    private static final java.util.logging.Logger TAGGER_LOG = java.util.logging.Logger.getLogger("org.jaudiotagger");
+
+    private final PrintStream out;
+    private final PrintStream err;
+    // Ctrl+C: оставшиеся папки и шаги пропускаются, уже сделанное сохраняется
+    private volatile boolean cancelled;
+    // Поток, который сейчас считает отпечатки: их поиск отменяется только прерыванием
+    private volatile Thread fingerprinting;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    LibraryCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        LibraryCli cli = new LibraryCli(System.out, System.err);
+        int code = cli.run(args);
+        // После Ctrl+C JVM уже завершается, и System.exit заблокировал бы поток навсегда
+        if (!cli.cancelled) System.exit(code);
+    }
+
+    /** Выполняет команду и возвращает код выхода: 0 — успех, 1 — ошибка, 2 — неверные аргументы. */
+    int run(String[] args) {
+        if (args.length == 0 || args[0].equals("--help") || args[0].equals("-h")) {
+            (args.length == 0 ? err : out).print(USAGE);
+            return args.length == 0 ? 2 : 0;
+        }
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return 2;
+        }
+
+        TAGGER_LOG.setLevel(java.util.logging.Level.WARNING);
+        Metrics.start();
+        LibraryManager manager = new LibraryManager();
+        // Ctrl+C: прерываем сканирование и ждём, пока основной поток сохранит библиотеку.
+        // Ждём именно сохранения, а не конца потока: после него main() ещё вызывает System.exit
+        Thread hook = new Thread(() -> {
+            cancelled = true;
+            manager.cancelScan();
+            Thread worker = fingerprinting;
+            if (worker != null) worker.interrupt();
+            try {
+                finished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // Выходим без ожидания
+            }
+        }, "cli-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            manager.setScanThreads(options.threads);
+            manager.loadPersistedLibrary();
+            return switch (options.command) {
+                case "scan" -> scan(manager, options);
+                case "stats" -> stats(manager);
+                case "export" -> export(manager, options);
+                default -> throw new IllegalStateException(options.command);
+            };
+        } catch (IOException e) {
+            logger.error("Команда {} не выполнена", options.command, e);
+            return 1;
+        } finally {
+            manager.shutdown();
+            Metrics.stop();
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
+                // JVM уже завершается
+            }
+        }
+    }
+
+    private int scan(LibraryManager manager, Options options) {
+        List<Path> roots = new ArrayList<>();
+        for (String arg : options.arguments) roots.add(Paths.get(arg).toAbsolutePath().normalize());
+        boolean refresh = roots.isEmpty();
+        if (refresh) roots.addAll(manager.getWatchedRoots());
+        if (roots.isEmpty()) {
+            err.println("Нет известных папок: укажите, что сканировать");
+            return 2;
+        }
+        for (Path root : roots) {
+            if (cancelled) break;
+            if (!Files.isDirectory(root)) {
+                err.println("Не папка, пропускаем: " + root);
+                continue;
+            }
+            long start = System.nanoTime();
+            int before = manager.getSongs().size();
+            manager.scanDirectory(root, progress("Сканирование " + root));
+            err.printf(Locale.ROOT, "%s: %d треков в библиотеке (+%d), %.1f с%n", root, manager.getSongs().size(),
+                    manager.getSongs().size() - before, (System.nanoTime() - start) / 1e9);
+        }
+        if (refresh && !cancelled) {
+            int pruned = manager.pruneMissing();
+            if (pruned > 0) err.println("Удалено пропавших файлов: " + pruned);
+        }
+        if (options.fingerprints && !cancelled) {
+            List<DuplicateGroup> groups;
+            fingerprinting = Thread.currentThread();
+            try {
+                groups = cancelled ? List.of() : manager.findDuplicates(progress("Отпечатки"));
+            } finally {
+                fingerprinting = null;
+                // Прерывание адресовано только поиску: сохранение библиотеки дальше должно пройти
+                Thread.interrupted();
+            }
+            if (!cancelled) err.println("Групп дубликатов: " + groups.size());
+        }
+        if (options.waveforms && !cancelled) buildWaveforms(manager);
+        if (cancelled) err.println("Прервано, готовое сохранено");
+        return cancelled ? 1 : 0;
+    }
+
+    /**
+     * Формы волны строит один фоновый поток кэша; здесь только ставим треки в очередь и ждём.
+     */
+    private void buildWaveforms(LibraryManager manager) {
+        WaveformCache cache = new WaveformCache(LibraryManager.getStorageDir().resolve("waveforms.bin"));
+        try {
+            List<Song> songs = manager.getSongs();
+            BatchListener progress = progress("Формы волны");
+            for (int i = 0; i < songs.size() && !cancelled; i++) {
+                CompletableFuture<?> future = cache.load(songs.get(i));
+                future.join();
+                progress.onProgress(i + 1, songs.size(), true);
+            }
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    private int stats(LibraryManager manager) {
+        List<Song> songs = manager.getSongs();
+        HierarchyIndex hierarchy = manager.getHierarchy();
+        long albums = 0;
+        for (String artist : hierarchy.artists()) albums += hierarchy.albumCount(artist);
+        long seconds = songs.stream().mapToLong(Song::durationSeconds).sum();
+
+        out.println("Треков:        " + songs.size());
+        out.println("Исполнителей:  " + hierarchy.artistCount());
+        out.println("Альбомов:      " + albums);
+        out.printf(Locale.ROOT, "Длительность:  %d ч %02d мин%n", seconds / 3600, seconds / 60 % 60);
+        out.println("Папки:         " + manager.getWatchedRoots());
+        out.println("Данные:        " + LibraryManager.getStorageDir() + " (" + directorySize(LibraryManager.getStorageDir()) / 1024 + " КБ)");
+        for (Map.Entry<String, TimingSnapshot> timing : Metrics.timings().entrySet()) {
+            if (timing.getKey().startsWith("library.")) out.println(timing.getKey() + ": " + timing.getValue());
+        }
+        return 0;
+    }
+
+    private int export(LibraryManager manager, Options options) throws IOException {
+        if (options.arguments.size() != 1) {
+            err.println("export: укажите один файл или -");
+            return 2;
+        }
+        String target = options.arguments.get(0);
+        String format = options.format != null ? options.format
+                : target.toLowerCase(Locale.ROOT).endsWith(".csv") ? "csv" : "jsonl";
+        List<Song> songs = manager.getSongs();
+
+        boolean toStdout = target.equals("-");
+        OutputStream stream = toStdout ? out : Files.newOutputStream(Paths.get(target));
+        try {
+            if (format.equals("csv")) writeCsv(songs, stream);
+            else writeJsonLines(songs, stream);
+        } finally {
+            if (toStdout) stream.flush();
+            else stream.close();
+        }
+        if (!toStdout) err.println("Выгружено " + songs.size() + " треков в " + target);
+        return 0;
+    }
+
+    /**
+     * Объект на строку через потоковый генератор Jackson: дерево документа не строится,
+     * память не зависит от размера библиотеки.
+     */
+    static void writeJsonLines(List<Song> songs, OutputStream stream) throws IOException {
+        // Разделитель строк пишем сами, стандартный пробел между корневыми значениями не нужен
+        JsonFactory factory = new JsonFactory().setRootValueSeparator(null);
+        try (JsonGenerator generator = factory.createGenerator(stream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (Song song : songs) {
+                generator.writeStartObject();
+                generator.writeStringField("path", song.filePath().toString());
+                generator.writeStringField("title", song.title());
+                generator.writeStringField("artist", song.artist());
+                generator.writeStringField("album", song.album());
+                generator.writeNumberField("durationSeconds", song.durationSeconds());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /** CSV по RFC 4180, UTF-8, с заголовком. */
+    static void writeCsv(List<Song> songs, OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        writer.write("path,title,artist,album,durationSeconds\r\n");
+        for (Song song : songs) {
+            writer.write(csv(song.filePath().toString()));
+            writer.write(',');
+            writer.write(csv(song.title()));
+            writer.write(',');
+            writer.write(csv(song.artist()));
+            writer.write(',');
+            writer.write(csv(song.album()));
+            writer.write(',');
+            writer.write(Long.toString(song.durationSeconds()));
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /** Прогресс в stderr не чаще раза в секунду и в конце. */
+    private BatchListener progress(String label) {
+        return new BatchListener() {
+            private long lastReport = System.nanoTime();
+            private boolean finished;
+
+            @Override
+            public void onProgress(int processed, int total, boolean totalKnown) {
+                long now = System.nanoTime();
+                boolean done = totalKnown && processed >= total;
+                if (done ? finished : now - lastReport < PROGRESS_INTERVAL_NANOS) return;
+                finished = done;
+                lastReport = now;
+                err.println(label + ": " + processed + (totalKnown ? " из " + total : " из ≥" + total));
+            }
+        };
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final class Options {
+        String command;
+        final List<String> arguments = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean fingerprints;
+        boolean waveforms;
+        String format;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            options.command = args[0];
+            if (!List.of("scan", "stats", "export").contains(options.command)) {
+                throw new IllegalArgumentException("Неизвестная команда: " + options.command);
+            }
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--threads" -> {
+                        try {
+                            options.threads = Integer.parseInt(value(args, ++i, arg));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("--threads: нужно число");
+                        }
+                        if (options.threads < 1) throw new IllegalArgumentException("--threads: нужно число больше нуля");
+                    }
+                    case "--fingerprints" -> options.fingerprints = true;
+                    case "--waveforms" -> options.waveforms = true;
+                    case "--format" -> {
+                        options.format = value(args, ++i, arg);
+                        if (!options.format.equals("jsonl") && !options.format.equals("csv")) {
+                            throw new IllegalArgumentException("--format: jsonl или csv");
+                        }
+                    }
+                    default -> {
+                        if (arg.startsWith("--")) throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+                        options.arguments.add(arg);
+                    }
+                }
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int i, String name) {
+            if (i >= args.length) throw new IllegalArgumentException(name + ": не хватает значения");
+            return args[i];
+        }
+    }
+}
\ No newline at end of file
@@ -1,18 +1,38 @@
 package com.soundwave.core;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Плейлист — упорядоченный список номеров треков (см. TrackIds) без повторов.
+ * Номера лежат в int[], принадлежность проверяется по BitSet за O(1).
+ */
 public class Playlist implements Serializable {
     private static final long serialVersionUID = 1L; // Хорошая практика для Serializable
     
     private String name;
+    // Старый формат (Java-сериализация): нужен только чтобы прочитать playlists.dat при переносе
     private List<String> songPaths;
 
+    private transient int[] trackIds;
+    private transient int size;
+    private transient BitSet members;
+    // Ленивая загрузка из хранилища: пока список не нужен, известна только его длина
+    private transient Supplier<int[]> loader;
+
     public Playlist(String name) {
         this.name = name;
-        this.songPaths = new ArrayList<>();
+        this.trackIds = new int[8];
+        this.members = new BitSet();
+    }
+
+    public Playlist(String name, int size, Supplier<int[]> loader) {
+        this.name = name;
+        this.size = size;
+        this.loader = loader;
     }
 
     public void setName(String name) {
@@ -23,13 +43,60 @@ public class Playlist implements Serializable {
         return name;
     }
 
-    public List<String> getSongPaths() {
-        return songPaths;
+    /** Число песен; не загружает список, если он ещё не нужен. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isLoaded() {
+        return members != null;
+    }
+
+    public boolean contains(int trackId) {
+        ensureLoaded();
+        return members.get(trackId);
     }
 
-    public void addSong(String path) {
-        if (!songPaths.contains(path)) {
-            songPaths.add(path);
+    /** Добавляет трек в конец, если его ещё нет. */
+    public boolean add(int trackId) {
+        ensureLoaded();
+        if (members.get(trackId)) return false;
+        if (size == trackIds.length) trackIds = Arrays.copyOf(trackIds, size * 2);
+        trackIds[size++] = trackId;
+        members.set(trackId);
+        return true;
+    }
+
+    public boolean remove(int trackId) {
+        ensureLoaded();
+        if (!members.get(trackId)) return false;
+        members.clear(trackId);
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            if (trackIds[r] != trackId) trackIds[w++] = trackIds[r];
         }
+        size = w;
+        return true;
+    }
+
+    /** Копия номеров треков в порядке плейлиста. */
+    public int[] getTrackIds() {
+        ensureLoaded();
+        return Arrays.copyOf(trackIds, size);
+    }
+
+    /** Пути из старого формата; null у плейлистов, созданных не из playlists.dat. */
+    public List<String> getLegacySongPaths() {
+        return songPaths;
+    }
+
+    private void ensureLoaded() {
+        if (members != null) return;
+        int[] loaded = loader != null ? loader.get() : new int[0];
+        loader = null;
+        trackIds = new int[Math.max(8, loaded.length)];
+        members = new BitSet();
+        size = 0;
+        for (int id : loaded) add(id);
     }
 }
\ No newline at end of file
@@ -12,7 +12,6 @@ public record Song(
     @JsonProperty("title") String title,
     @JsonProperty("artist") String artist,
     @JsonProperty("album") String album,
-    @JsonProperty("durationFormatted") String durationFormatted,
     @JsonProperty("durationSeconds") long durationSeconds
 ) {    /**
      * Кастомный компактный конструктор для валидации и обработки пустых значений.
@@ -29,6 +28,17 @@ public record Song(
         }
     }
 
+    /**
+     * Длительность в виде "3:07". Считается при вызове: строка на каждую песню в библиотеке не хранится.
+     */
+    public String durationFormatted() {
+        return formatDuration(durationSeconds);
+    }
+
+    public static String formatDuration(long seconds) {
+        return seconds / 60 + ":" + (seconds % 60 < 10 ? "0" : "") + seconds % 60;
+    }
+
     // Вспомогательный метод для отображения в логах или UI
     public String getFullDisplayTitle() {
         return artist + " - " + title;
@@ -0,0 +1,220 @@
+package com.soundwave.gui;
+
+import com.soundwave.artwork.ArtworkCache;
+import com.soundwave.core.Song;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Виртуализированная сетка карточек.
+ * Строки — ячейки ListView, поэтому узлы создаются только для видимых строк
+ * и переиспользуются при прокрутке, сколько бы элементов ни было в списке.
+ */
+public class CardGrid extends ListView<Integer> {
+    public static final String CARD_STYLE = "-fx-background-color: #111; -fx-background-radius: 15; -fx-cursor: hand;";
+
+    private static final double CARD_WIDTH = 160;
+    private static final double CARD_HEIGHT = 64;
+    private static final double GAP = 20;
+    private static final double COVER_SIZE = 40;
+
+    /**
+     * Как показывать элемент в карточке и что делать по клику.
+     */
+    public interface CardAdapter<T> {
+        String title(T item);
+
+        String subtitle(T item);
+
+        default String style(T item) {
+            return CARD_STYLE;
+        }
+
+        /** Трек, чья обложка показывается на карточке; null — без обложки. */
+        default Song artwork(T item) {
+            return null;
+        }
+
+        void onClick(MouseEvent event, T item);
+    }
+
+    private List<?> items = List.of();
+    private CardAdapter<?> adapter;
+    private int columns = 1;
+    // Строка — это просто её номер, сами элементы берутся из items при отрисовке
+    private final ObservableList<Integer> rows = FXCollections.observableArrayList();
+    // Если показываем живой ObservableList, пересчитываем строки при его изменении
+    private final InvalidationListener itemsListener = obs -> rebuildRows();
+    private ArtworkCache artworkCache;
+
+    public CardGrid() {
+        setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
+        setFocusTraversable(false);
+        setFixedCellSize(CARD_HEIGHT + GAP);
+        setCellFactory(list -> new RowCell());
+        setItems(rows);
+        widthProperty().addListener((obs, old, width) -> {
+            int fit = columnsFor(width.doubleValue());
+            if (fit != columns) {
+                columns = fit;
+                rebuildRows();
+            }
+        });
+    }
+
+    public <T> void setItems(List<T> items, CardAdapter<T> adapter) {
+        if (this.items instanceof ObservableList<?> old) old.removeListener(itemsListener);
+        this.items = items;
+        if (items instanceof ObservableList<?> observable) observable.addListener(itemsListener);
+        this.adapter = adapter;
+        columns = columnsFor(getWidth());
+        rebuildRows();
+        scrollTo(0);
+    }
+
+    public void setArtworkCache(ArtworkCache artworkCache) {
+        this.artworkCache = artworkCache;
+        refresh();
+    }
+
+    public void clear() {
+        setItems(List.of(), null);
+    }
+
+    /**
+     * Подгоняет число строк под items. Строки меняются на разницу, а не пересоздаются,
+     * поэтому при дозагрузке песен прокрутка не прыгает.
+     */
+    private void rebuildRows() {
+        int target = (items.size() + columns - 1) / columns;
+        if (rows.size() > target) {
+            rows.remove(target, rows.size());
+        } else if (rows.size() < target) {
+            List<Integer> added = new ArrayList<>(target - rows.size());
+            for (int i = rows.size(); i < target; i++) added.add(i);
+            rows.addAll(added);
+        }
+        refresh();
+    }
+
+    private static int columnsFor(double width) {
+        // Запас под вертикальную полосу прокрутки
+        double usable = width - 20;
+        return Math.max(1, (int) ((usable + GAP) / (CARD_WIDTH + GAP)));
+    }
+
+    private final class RowCell extends ListCell<Integer> {
+        private final HBox row = new HBox(GAP);
+        private final List<CardNode> cards = new ArrayList<>();
+
+        RowCell() {
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+            row.setAlignment(Pos.TOP_LEFT);
+        }
+
+        @Override
+        protected void updateItem(Integer rowIndex, boolean empty) {
+            super.updateItem(rowIndex, empty);
+            if (empty || rowIndex == null || adapter == null) {
+                setGraphic(null);
+                return;
+            }
+
+            while (cards.size() < columns) {
+                CardNode card = new CardNode();
+                cards.add(card);
+                row.getChildren().add(card);
+            }
+            int start = rowIndex * columns;
+            for (int c = 0; c < cards.size(); c++) {
+                CardNode card = cards.get(c);
+                int index = start + c;
+                boolean visible = c < columns && index < items.size();
+                card.setVisible(visible);
+                card.setManaged(c < columns);
+                if (visible) card.bind(index);
+            }
+            setGraphic(row);
+        }
+    }
+
+    private final class CardNode extends HBox {
+        private final Label title = new Label();
+        private final Label subtitle = new Label();
+        private final ImageView cover = new ImageView();
+        private int index;
+        private Song coverSong; // Чью обложку ждём: карточку могли переиспользовать, пока она грузилась
+
+        CardNode() {
+            super(10);
+            setPadding(new Insets(12));
+            setPrefWidth(CARD_WIDTH);
+            setMinWidth(CARD_WIDTH);
+            setPrefHeight(CARD_HEIGHT);
+            setMaxHeight(CARD_HEIGHT);
+            setAlignment(Pos.CENTER_LEFT);
+            title.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 13;");
+            subtitle.setStyle("-fx-text-fill: #777; -fx-font-size: 11;");
+            cover.setFitWidth(COVER_SIZE);
+            cover.setFitHeight(COVER_SIZE);
+            cover.setPreserveRatio(true);
+            VBox text = new VBox(8, title, subtitle);
+            text.setAlignment(Pos.CENTER_LEFT);
+            text.setMinWidth(0);
+            getChildren().addAll(cover, text);
+            setOnMouseClicked(this::handleClick);
+        }
+
+        @SuppressWarnings("unchecked")
+        void bind(int index) {
+            this.index = index;
+            CardAdapter<Object> a = (CardAdapter<Object>) adapter;
+            Object item = items.get(index);
+            title.setText(a.title(item));
+            subtitle.setText(a.subtitle(item));
+            setStyle(a.style(item));
+            bindCover(a.artwork(item));
+        }
+
+        private void bindCover(Song song) {
+            boolean show = song != null && artworkCache != null;
+            cover.setVisible(show);
+            cover.setManaged(show);
+            if (!show) {
+                coverSong = null;
+                cover.setImage(null);
+                return;
+            }
+            if (song.equals(coverSong) && cover.getImage() != null) return;
+
+            coverSong = song;
+            Image cached = artworkCache.getIfCached(song, (int) COVER_SIZE);
+            cover.setImage(cached);
+            if (cached != null) return;
+            artworkCache.load(song, (int) COVER_SIZE).thenAccept(image -> Platform.runLater(() -> {
+                if (song.equals(coverSong)) cover.setImage(image);
+            }));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handleClick(MouseEvent event) {
+            if (adapter == null || index >= items.size()) return;
+            ((CardAdapter<Object>) adapter).onClick(event, items.get(index));
+        }
+    }
+}
\ No newline at end of file
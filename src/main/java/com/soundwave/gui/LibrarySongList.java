@@ -0,0 +1,123 @@
+package com.soundwave.gui;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.LibraryManager;
+import javafx.collections.ObservableListBase;
+
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Все песни библиотеки для сетки: хранит ключи треков, а не песни. Песня собирается из библиотеки,
+ * только когда её карточку рисуют, поэтому интерфейс не держит Song и Path на каждый трек.
+ * Пока библиотека загружается, прочитанные песни, которых в ней ещё нет, держатся как есть
+ * и заменяются ключами при {@link #refresh()}. Библиотека подключается, когда её откроет фоновая задача;
+ * до этого список пуст. Только для FX-потока.
+ */
+final class LibrarySongList extends ObservableListBase<Song> {
+    // Трек удалили после последнего refresh(), а сетка ещё дорисовывает старый снимок
+    private static final Song MISSING = new Song(Paths.get(""), "—", null, null, 0);
+
+    private LibraryManager library;
+    private int[] keys = new int[0];
+    private List<Song> loading = new ArrayList<>();
+
+    void setLibrary(LibraryManager library) {
+        this.library = library;
+    }
+
+    /**
+     * Сверяет список с библиотекой. Если песни только дописались в конец, слушатели получают
+     * добавление, а не замену всего списка.
+     */
+    void refresh() {
+        if (library == null) return;
+        int[] old = keys;
+        List<Song> oldLoading = loading;
+        int[] fresh = library.getSongKeys();
+        if (old.length + oldLoading.size() == 0 && fresh.length == 0) return;
+        boolean appended = oldLoading.isEmpty() && fresh.length > old.length
+                && Arrays.equals(old, 0, old.length, fresh, 0, old.length);
+        keys = fresh;
+        loading = new ArrayList<>();
+
+        beginChange();
+        if (appended) nextAdd(old.length, fresh.length);
+        else nextReplace(0, fresh.length, snapshot(old, oldLoading));
+        endChange();
+    }
+
+    /** Дописывает песни, которых в библиотеке ещё нет: загрузка отдаёт их раньше, чем наполняет индекс. */
+    void appendLoading(List<Song> songs) {
+        if (songs.isEmpty()) return;
+        int from = size();
+        loading.addAll(songs);
+        beginChange();
+        nextAdd(from, size());
+        endChange();
+    }
+
+    /** Ключи песен списка или null, пока в нём есть прочитанные песни, которых ещё нет в библиотеке. */
+    int[] keys() {
+        return loading.isEmpty() ? keys : null;
+    }
+
+    @Override
+    public Song get(int index) {
+        Objects.checkIndex(index, size());
+        return index < keys.length ? songOf(keys[index]) : loading.get(index - keys.length);
+    }
+
+    @Override
+    public int size() {
+        return keys.length + loading.size();
+    }
+
+    /** Ищет по ключу, не собирая песни всего списка. */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Song song)) return -1;
+        int key = library != null ? library.getSongKey(song.filePath()) : -1;
+        if (key >= 0) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return song.equals(get(i)) ? i : -1;
+            }
+        }
+        int pending = loading.indexOf(song);
+        return pending < 0 ? -1 : keys.length + pending;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o); // Ключи в списке не повторяются
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private Song songOf(int key) {
+        Song song = library.getSong(key);
+        return song != null ? song : MISSING;
+    }
+
+    /** Прежнее содержимое для события замены; песни собираются, только если слушатель их запросит. */
+    private List<Song> snapshot(int[] keys, List<Song> loading) {
+        return new AbstractList<>() {
+            @Override
+            public Song get(int index) {
+                return index < keys.length ? songOf(keys[index]) : loading.get(index - keys.length);
+            }
+
+            @Override
+            public int size() {
+                return keys.length + loading.size();
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.soundwave.gui;
+
+import com.soundwave.core.Song;
+import com.soundwave.library.BatchListener;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Фоновая операция с библиотекой. Частичные результаты копятся и отдаются
+ * в FX-поток пачками, не чаще одного Platform.runLater за раз.
+ */
+public abstract class LibraryTask<T> extends Task<T> {
+    private final Consumer<List<Song>> onPartialResults;
+    private final List<Song> pending = new ArrayList<>();
+    private boolean drainScheduled;
+
+    protected LibraryTask(String title, Consumer<List<Song>> onPartialResults) {
+        this.onPartialResults = onPartialResults;
+        updateTitle(title);
+    }
+
+    /**
+     * Можно ли прервать задачу кнопкой в строке состояния.
+     */
+    public boolean isCancellable() {
+        return true;
+    }
+
+    /**
+     * Просит задачу остановиться, не прерывая её поток: прерывание закрывает FileChannel
+     * посреди записи библиотеки. false — задача так не умеет, её поток будет прерван.
+     */
+    protected boolean stopCooperatively() {
+        return false;
+    }
+
+    /**
+     * Передаёт готовые песни в интерфейс. Можно вызывать из фонового потока сколько угодно часто.
+     */
+    protected void publish(List<Song> songs) {
+        if (songs.isEmpty() || isCancelled()) return;
+        synchronized (pending) {
+            pending.addAll(songs);
+            if (drainScheduled) return;
+            drainScheduled = true;
+        }
+        Platform.runLater(this::drain);
+    }
+
+    /**
+     * Слушатель для методов LibraryManager: пачки уходят в интерфейс, прогресс — в задачу.
+     */
+    protected BatchListener batchListener() {
+        return new BatchListener() {
+            @Override
+            public void onBatch(List<Song> batch) {
+                publish(batch);
+            }
+
+            @Override
+            public void onProgress(int processed, int total, boolean totalKnown) {
+                if (totalKnown) updateProgress(processed, total);
+                updateMessage(processed + (totalKnown ? " / " + total : ""));
+            }
+        };
+    }
+
+    private void drain() {
+        List<Song> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            drainScheduled = false;
+        }
+        if (!batch.isEmpty() && !isCancelled()) onPartialResults.accept(batch);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.soundwave.gui;
+
+import javafx.concurrent.Task;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Выполняет операции с библиотекой по одной в фоновом потоке
+ * и показывает прогресс текущей в строке состояния.
+ */
+public class LibraryTaskRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LibraryTaskRunner.class);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-task");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ProgressBar progressBar;
+    private final Label statusLabel;
+    private final Button cancelButton;
+    private Task<?> current;
+
+    public LibraryTaskRunner(ProgressBar progressBar, Label statusLabel, Button cancelButton) {
+        this.progressBar = progressBar;
+        this.statusLabel = statusLabel;
+        this.cancelButton = cancelButton;
+        cancelButton.setOnAction(e -> cancelCurrent());
+        showIdle();
+    }
+
+    /**
+     * Ставит задачу в очередь. Вызывать из FX-потока.
+     */
+    public void submit(Task<?> task) {
+        task.setOnScheduled(e -> show(task));
+        task.setOnSucceeded(e -> finished(task));
+        task.setOnCancelled(e -> finished(task));
+        task.setOnFailed(e -> finished(task));
+        executor.submit(task);
+    }
+
+    public void cancelCurrent() {
+        if (current == null) return;
+        if (current instanceof LibraryTask<?> libraryTask && libraryTask.stopCooperatively()) {
+            current.cancel(false);
+        } else {
+            current.cancel(true);
+        }
+    }
+
+    public void shutdown() {
+        cancelCurrent();
+        executor.shutdownNow();
+    }
+
+    private void show(Task<?> task) {
+        current = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        statusLabel.textProperty().bind(task.titleProperty().concat("  ").concat(task.messageProperty()));
+        progressBar.setVisible(true);
+        cancelButton.setVisible(!(task instanceof LibraryTask<?> libraryTask) || libraryTask.isCancellable());
+    }
+
+    private void finished(Task<?> task) {
+        if (task.getException() != null) {
+            logger.error("Ошибка фоновой операции: {}", task.getTitle(), task.getException());
+        }
+        if (current == task) {
+            current = null;
+            showIdle();
+        }
+    }
+
+    private void showIdle() {
+        progressBar.progressProperty().unbind();
+        statusLabel.textProperty().unbind();
+        statusLabel.setText("");
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+    }
+}
\ No newline at end of file
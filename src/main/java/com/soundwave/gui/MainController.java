@@ -1,18 +1,29 @@
 package com.soundwave.gui;
 
+import com.soundwave.artwork.ArtworkCache;
 import com.soundwave.core.*;
+import com.soundwave.library.DuplicateGroup;
+import com.soundwave.library.HierarchyIndex;
+import com.soundwave.library.LibraryChange;
 import com.soundwave.library.LibraryManager;
+import com.soundwave.metrics.Metrics;
+import com.soundwave.metrics.Timing;
+import com.soundwave.waveform.Waveform;
+import com.soundwave.waveform.WaveformCache;
 import com.soundwave.player.AudioService;
 import com.soundwave.player.JavaFXAudioService;
+import com.soundwave.player.LineAudioSink;
+import com.soundwave.player.PlayQueue;
+import com.soundwave.player.PlaybackPositionPublisher;
+import com.soundwave.player.SampledAudioService;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.geometry.Side;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -24,91 +35,162 @@ import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class MainController {
+    private static final Logger logger = LoggerFactory.getLogger(MainController.class);
 
-    @FXML private FlowPane albumGrid;
+    @FXML private CardGrid albumGrid;
     @FXML private TextField searchField;
     @FXML private Label currentTitle, currentArtist, currentTimeLabel, totalTimeLabel, clockLabel;
     @FXML private Slider progressSlider, volumeSlider;
-    @FXML private Button playBtn, likeBtn, eqMenuBtn; 
+    @FXML private WaveformView waveformView;
+    @FXML private Button playBtn, likeBtn, eqMenuBtn, shuffleBtn, repeatBtn; 
     @FXML private ImageView currentAlbumArt;
     @FXML private SVGPath likeIcon;
+    @FXML private ProgressBar taskProgress;
+    @FXML private Label taskStatus;
+    @FXML private Button taskCancelBtn;
 
     private AudioService audioService;
-    private LibraryManager libraryManager;
-    private final ObservableList<Song> songList = FXCollections.observableArrayList();
+    // Открывается первой фоновой задачей; до этого null, и действия с библиотекой ничего не делают
+    private volatile LibraryManager libraryManager;
+    private LibraryTaskRunner taskRunner;
+    private ArtworkCache artworkCache;
+    private WaveformCache waveformCache;
+    private PlaybackPositionPublisher positionPublisher;
+    private static final int COVER_ART_SIZE = 340;
+    private static final Duration POSITION_INTERVAL = Duration.millis(250);
+    private final LibrarySongList songList = new LibrarySongList(); // Вся библиотека: ключи треков, песни собираются при отрисовке
     private final List<Song> favoriteSongs = new ArrayList<>(); 
-    private final List<Song> selectedSongs = new ArrayList<>(); // Список для множественного выбора
+    private final Set<Song> selectedSongs = new LinkedHashSet<>(); // Множественный выбор, в порядке кликов
     private Song currentlyPlayingSong;
-    private List<Song> activeQueue = new ArrayList<>();
+    // Треки библиотеки очередь хранит ключами; пока библиотека не создана, песни хранятся как есть
+    private final PlayQueue playQueue = new PlayQueue(new PlayQueue.Tracks() {
+        @Override
+        public int key(Song song) {
+            return libraryManager != null ? libraryManager.getSongKey(song.filePath()) : -1;
+        }
+
+        @Override
+        public Song song(int key) {
+            return libraryManager.getSong(key);
+        }
+    });
+    private List<Song> displayedSongs = List.of(); // Что сейчас показано в сетке
     
     private ContextMenu eqPopup;
+    private static final Duration CROSSFADE = Duration.seconds(3);
+    private boolean crossfadeEnabled;
+
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(150));
+    private final AtomicLong searchGeneration = new AtomicLong();
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendingSearch;
 
     @FXML
     public void initialize() {
         Platform.runLater(() -> {
-            audioService = new JavaFXAudioService();
-            libraryManager = new LibraryManager();
+            audioService = createAudioService();
+            positionPublisher = new PlaybackPositionPublisher(audioService, POSITION_INTERVAL, Platform::runLater);
+            positionPublisher.subscribe(this::updatePosition);
+            taskRunner = new LibraryTaskRunner(taskProgress, taskStatus, taskCancelBtn);
+            artworkCache = new ArtworkCache(LibraryManager.getStorageDir().resolve("artwork"), ArtworkCache.DEFAULT_MEMORY_BYTES);
+            albumGrid.setArtworkCache(artworkCache);
+            waveformCache = new WaveformCache(LibraryManager.getStorageDir().resolve("waveforms.bin"));
             setupVolume();
+            showRepeatMode(playQueue.getRepeatMode());
             setupRewindLogic();
             setupSearch();
             startClock();
             loadLibraryAsync(); 
-            audioService.setOnEndOfMedia(() -> Platform.runLater(this::handleNext));
+            audioService.setOnEndOfMedia(() -> Platform.runLater(this::handleTrackFinished));
         });
     }
 
+    // -Dsoundwave.audio=sampled включает движок на javax.sound.sampled вместо MediaPlayer
+    private static AudioService createAudioService() {
+        if ("sampled".equals(System.getProperty("soundwave.audio"))) {
+            return new SampledAudioService(new LineAudioSink(100), SampledAudioService.DEFAULT_BUFFER_MILLIS, Platform::runLater);
+        }
+        return new JavaFXAudioService();
+    }
+
     // --- ЛОГИКА МНОЖЕСТВЕННОГО ВЫБОРА ---
 
-    private void handleSongClick(MouseEvent event, Song song, VBox card) {
+    private void handleSongClick(MouseEvent event, Song song) {
         if (event.getButton() == MouseButton.PRIMARY) {
             if (event.isControlDown()) {
                 // Ctrl + Click: добавить/убрать из выделения
-                if (selectedSongs.contains(song)) {
-                    selectedSongs.remove(song);
-                    updateCardStyle(card, false);
-                } else {
-                    selectedSongs.add(song);
-                    updateCardStyle(card, true);
-                }
+                if (!selectedSongs.remove(song)) selectedSongs.add(song);
+                albumGrid.refresh();
             } else {
-                // Обычный клик: играть песню и сбросить выделение
+                // Обычный клик: играть песню и сбросить выделение, очередь — то, что показано
                 clearSelection();
-                playSong(song);
+                playFrom(displayedSongs.contains(song) ? displayedSongs : songList, song);
             }
         } else if (event.getButton() == MouseButton.SECONDARY) {
             // Правый клик: если песня не в выделении, выделяем только её
             if (!selectedSongs.contains(song)) {
                 clearSelection();
                 selectedSongs.add(song);
-                updateCardStyle(card, true);
+                albumGrid.refresh();
             }
             showSongContextMenu(event, song);
         }
     }
 
     private void clearSelection() {
+        if (selectedSongs.isEmpty()) return;
         selectedSongs.clear();
-        albumGrid.getChildren().forEach(node -> {
-            if (node instanceof VBox) updateCardStyle((VBox) node, false);
-        });
+        albumGrid.refresh();
     }
 
-    private void updateCardStyle(VBox card, boolean isSelected) {
-        if (isSelected) {
-            card.setStyle("-fx-background-color: #1a1a1a; -fx-background-radius: 15; -fx-border-color: #ff5500; -fx-border-width: 2; -fx-border-radius: 15;");
-        } else {
-            card.setStyle("-fx-background-color: #111; -fx-background-radius: 15; -fx-border-color: transparent;");
+    // Карточка песни: стиль зависит от выделения, которое хранится в selectedSongs, а не в узлах
+    private final CardGrid.CardAdapter<Song> songCards = new CardGrid.CardAdapter<>() {
+        @Override
+        public String title(Song song) { return song.title(); }
+
+        @Override
+        public String subtitle(Song song) { return song.artist(); }
+
+        @Override
+        public String style(Song song) {
+            return selectedSongs.contains(song)
+                    ? "-fx-background-color: #1a1a1a; -fx-background-radius: 15; -fx-border-color: #ff5500; -fx-border-width: 2; -fx-border-radius: 15; -fx-cursor: hand;"
+                    : CardGrid.CARD_STYLE;
         }
-    }
+
+        @Override
+        public void onClick(MouseEvent event, Song song) { handleSongClick(event, song); }
+
+        @Override
+        public Song artwork(Song song) { return song; }
+    };
 
     // --- КОНТЕКСТНОЕ МЕНЮ (С ПОДДЕРЖКОЙ МНОЖЕСТВА ПЕСЕН) ---
 
@@ -122,20 +204,34 @@ public class MainController {
         MenuItem play = new MenuItem("Воспроизвести" + (count > 1 ? " выбранные" : ""));
         play.setOnAction(e -> {
             if (count > 1) {
-                activeQueue = new ArrayList<>(selectedSongs);
-                playSong(activeQueue.get(0));
+                List<Song> chosen = new ArrayList<>(selectedSongs);
+                playFrom(chosen, chosen.get(0));
             } else {
-                playSong(song);
+                playFrom(displayedSongs.contains(song) ? displayedSongs : songList, song);
             }
         });
 
+        MenuItem playNext = new MenuItem("Играть следующей" + suffix);
+        playNext.setOnAction(e -> {
+            List<Song> chosen = new ArrayList<>(selectedSongs);
+            // Вставляем с конца, чтобы выбранные сыграли в порядке выделения
+            for (int i = chosen.size() - 1; i >= 0; i--) playQueue.playNext(chosen.get(i));
+            afterQueueChanged();
+            clearSelection();
+        });
+
+        MenuItem enqueue = new MenuItem("Добавить в очередь" + suffix);
+        enqueue.setOnAction(e -> {
+            selectedSongs.forEach(playQueue::add);
+            afterQueueChanged();
+            clearSelection();
+        });
+
         Menu addToPlaylistMenu = new Menu("Добавить в плейлист" + suffix);
         for (Playlist p : libraryManager.getPlaylists()) {
             MenuItem pItem = new MenuItem(p.getName());
             pItem.setOnAction(e -> {
-                for (Song s : selectedSongs) {
-                    libraryManager.addSongToPlaylist(p.getName(), s);
-                }
+                libraryManager.addSongsToPlaylist(p.getName(), selectedSongs);
                 clearSelection();
             });
             addToPlaylistMenu.getItems().add(pItem);
@@ -144,14 +240,14 @@ public class MainController {
         MenuItem delete = new MenuItem("Удалить из библиотеки" + suffix);
         delete.getStyleClass().add("menu-item-delete");
         delete.setOnAction(e -> {
-            songList.removeAll(selectedSongs);
             favoriteSongs.removeAll(selectedSongs);
             selectedSongs.forEach(libraryManager::removeSong);
+            songList.refresh();
             clearSelection();
             showAllSongs();
         });
 
-        menu.getItems().addAll(play, new SeparatorMenuItem(), addToPlaylistMenu, delete);
+        menu.getItems().addAll(play, playNext, enqueue, new SeparatorMenuItem(), addToPlaylistMenu, delete);
         menu.show(albumGrid, event.getScreenX(), event.getScreenY());
     }
 
@@ -192,85 +288,120 @@ public class MainController {
         resetBtn.setStyle("-fx-background-color: #222; -fx-text-fill: white; -fx-background-radius: 8; -fx-cursor: hand;");
         resetBtn.setOnAction(e -> { if(bands != null) bands.forEach(b -> b.setGain(0)); handleEqPopup(); });
 
-        mainLayout.getChildren().addAll(slidersContainer, resetBtn);
+        CheckBox crossfadeBox = new CheckBox("Кроссфейд " + (int) CROSSFADE.toSeconds() + " с");
+        crossfadeBox.setStyle("-fx-text-fill: white;");
+        crossfadeBox.setSelected(crossfadeEnabled);
+        crossfadeBox.selectedProperty().addListener((obs, old, on) -> {
+            crossfadeEnabled = on;
+            audioService.setCrossfade(on ? CROSSFADE : Duration.ZERO);
+        });
+
+        mainLayout.getChildren().addAll(slidersContainer, crossfadeBox, resetBtn);
         eqPopup.getItems().add(new CustomMenuItem(mainLayout));
         eqPopup.show(eqMenuBtn, Side.BOTTOM, -220, 10);
     }
 
     // --- ПЛЕЙЛИСТЫ И СЕТКА ---
 
+    // Первая карточка в списке плейлистов — кнопка создания нового
+    private static final Object NEW_PLAYLIST_CARD = new Object();
+
     @FXML
     private void showPlaylists() {
-        albumGrid.getChildren().clear();
+        if (libraryManager == null) return;
+        displayedSongs = List.of();
         selectedSongs.clear();
 
-        VBox createCard = createBaseCard("+", "Создать плейлист");
-        createCard.setStyle("-fx-background-color: #1a1a1a; -fx-background-radius: 15; -fx-border-color: #ff5500; -fx-border-style: dashed; -fx-border-radius: 15; -fx-border-width: 2;");
-        createCard.setOnMouseClicked(e -> handleCreatePlaylist());
-        albumGrid.getChildren().add(createCard);
+        List<Object> cards = new ArrayList<>();
+        cards.add(NEW_PLAYLIST_CARD);
+        cards.addAll(libraryManager.getPlaylists());
 
-        for (Playlist p : libraryManager.getPlaylists()) {
-            VBox card = createBaseCard(p.getName(), p.getSongPaths().size() + " треков");
-            card.setOnMouseClicked(e -> {
+        albumGrid.setItems(cards, new CardGrid.CardAdapter<>() {
+            @Override
+            public String title(Object item) {
+                return item == NEW_PLAYLIST_CARD ? "+" : ((Playlist) item).getName();
+            }
+
+            @Override
+            public String subtitle(Object item) {
+                return item == NEW_PLAYLIST_CARD ? "Создать плейлист" : ((Playlist) item).size() + " треков";
+            }
+
+            @Override
+            public String style(Object item) {
+                return item == NEW_PLAYLIST_CARD
+                        ? "-fx-background-color: #1a1a1a; -fx-background-radius: 15; -fx-border-color: #ff5500; -fx-border-style: dashed; -fx-border-radius: 15; -fx-border-width: 2;"
+                        : CardGrid.CARD_STYLE;
+            }
+
+            @Override
+            public void onClick(MouseEvent e, Object item) {
+                if (item == NEW_PLAYLIST_CARD) {
+                    handleCreatePlaylist();
+                    return;
+                }
+                Playlist p = (Playlist) item;
                 if (e.getButton() == MouseButton.PRIMARY) {
-                    List<Song> filtered = songList.stream()
-                            .filter(s -> p.getSongPaths().contains(s.filePath().toString()))
-                            .toList();
-                    updateGrid(filtered);
+                    updateGrid(libraryManager.getPlaylistSongs(p));
                 } else if (e.getButton() == MouseButton.SECONDARY) {
                     showPlaylistContextMenu(e, p);
                 }
-            });
-            albumGrid.getChildren().add(card);
-        }
+            }
+        });
     }
 
     private void updateGrid(List<Song> songs) {
-        albumGrid.getChildren().clear();
+        displayedSongs = songs;
         selectedSongs.clear();
-        for (Song song : songs) {
-            VBox card = createBaseCard(song.title(), song.artist());
-            card.setOnMouseClicked(e -> handleSongClick(e, song, card));
-            albumGrid.getChildren().add(card);
+        try (Timing ignored = Metrics.time("ui.gridRebuild")) {
+            albumGrid.setItems(songs, songCards);
         }
     }
 
     // --- ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ (БЕЗ ИЗМЕНЕНИЙ) ---
 
+    /** Делает context очередью и начинает с song. Вся библиотека встаёт в очередь ключами, без копии песен. */
+    private void playFrom(List<Song> context, Song song) {
+        int index = context.indexOf(song);
+        int[] keys = context == songList ? songList.keys() : null;
+        if (index < 0) playQueue.setQueue(List.of(song), 0);
+        else if (keys != null) playQueue.setQueue(keys, index);
+        else playQueue.setQueue(context, index);
+        playSong(song);
+    }
+
     private void playSong(Song song) {
         if (song == null) return;
         currentlyPlayingSong = song;
-        activeQueue = new ArrayList<>(songList);
         audioService.play(song);
+        audioService.prepareNext(playQueue.peekNext());
         currentTitle.setText(song.title());
         currentArtist.setText(song.artist());
         playBtn.setText("⏸");
         totalTimeLabel.setText(song.durationFormatted());
         updateLikeButtonIcon();
         
-        File folder = song.filePath().toFile().getParentFile();
-        File cover = new File(folder, "cover.jpg");
-        currentAlbumArt.setImage(cover.exists() ? new Image(cover.toURI().toString()) : null);
-
-        audioService.currentTimeProperty().addListener((obs, old, newTime) -> {
-            if (newTime != null) {
-                double progress = (newTime.toSeconds() / (double) song.durationSeconds()) * 100;
-                progressSlider.setValue(progress);
-                currentTimeLabel.setText(formatDuration(newTime));
-            }
-        });
+        currentAlbumArt.setImage(artworkCache.getIfCached(song, COVER_ART_SIZE));
+        artworkCache.load(song, COVER_ART_SIZE).thenAccept(image -> Platform.runLater(() -> {
+            if (song.equals(currentlyPlayingSong)) currentAlbumArt.setImage(image);
+        }));
+
+        waveformView.setProgress(0);
+        Waveform cachedWaveform = waveformCache.getIfCached(song);
+        waveformView.setWaveform(cachedWaveform);
+        if (cachedWaveform == null) {
+            waveformCache.load(song).thenAccept(waveform -> Platform.runLater(() -> {
+                if (song.equals(currentlyPlayingSong)) waveformView.setWaveform(waveform);
+            }));
+        }
     }
 
-    private VBox createBaseCard(String title, String subtitle) {
-        VBox card = new VBox(8);
-        card.setPadding(new Insets(12));
-        card.setPrefWidth(160);
-        card.setAlignment(Pos.CENTER_LEFT);
-        card.setStyle("-fx-background-color: #111; -fx-background-radius: 15; -fx-cursor: hand;");
-        Label t = new Label(title); t.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 13;");
-        Label s = new Label(subtitle); s.setStyle("-fx-text-fill: #777; -fx-font-size: 11;");
-        card.getChildren().addAll(t, s);
-        return card;
+    private void updatePosition(Duration time) {
+        if (currentlyPlayingSong == null) return;
+        long total = currentlyPlayingSong.durationSeconds();
+        progressSlider.setValue(total > 0 ? time.toSeconds() / total * 100 : 0);
+        waveformView.setProgress(progressSlider.getValue() / 100);
+        currentTimeLabel.setText(formatDuration(time));
     }
 
     private void handleCreatePlaylist() {
@@ -295,20 +426,60 @@ public class MainController {
         else { audioService.resume(); playBtn.setText("⏸"); }
     }
 
+    // Очередь изменилась — следующий трек мог смениться, переподготавливаем его
+    private void afterQueueChanged() {
+        if (currentlyPlayingSong == null) {
+            playSong(playQueue.current());
+        } else {
+            audioService.prepareNext(playQueue.peekNext());
+        }
+    }
+
+    private void handleTrackFinished() {
+        Song next = playQueue.next();
+        if (next != null) {
+            playSong(next);
+        } else {
+            playBtn.setText("▶"); // Очередь кончилась
+        }
+    }
+
     @FXML private void handleNext() {
-        if (activeQueue.isEmpty()) return;
-        int idx = activeQueue.indexOf(currentlyPlayingSong);
-        playSong(activeQueue.get((idx + 1) % activeQueue.size()));
+        playSong(playQueue.skip());
     }
 
     @FXML private void handlePrevious() {
-        if (activeQueue.isEmpty()) return;
-        int idx = activeQueue.indexOf(currentlyPlayingSong);
-        playSong(activeQueue.get((idx - 1 + activeQueue.size()) % activeQueue.size()));
+        playSong(playQueue.previous());
+    }
+
+    @FXML private void handleShuffle() {
+        playQueue.setShuffle(!playQueue.isShuffle());
+        shuffleBtn.setStyle(modeButtonStyle(playQueue.isShuffle()));
+        audioService.prepareNext(playQueue.peekNext());
+    }
+
+    @FXML private void handleRepeat() {
+        PlayQueue.RepeatMode mode = switch (playQueue.getRepeatMode()) {
+            case OFF -> PlayQueue.RepeatMode.ALL;
+            case ALL -> PlayQueue.RepeatMode.ONE;
+            case ONE -> PlayQueue.RepeatMode.OFF;
+        };
+        playQueue.setRepeatMode(mode);
+        showRepeatMode(mode);
+        audioService.prepareNext(playQueue.peekNext());
+    }
+
+    private void showRepeatMode(PlayQueue.RepeatMode mode) {
+        repeatBtn.setText(mode == PlayQueue.RepeatMode.ONE ? "🔂" : "🔁");
+        repeatBtn.setStyle(modeButtonStyle(mode != PlayQueue.RepeatMode.OFF));
+    }
+
+    private static String modeButtonStyle(boolean on) {
+        return "-fx-background-color: transparent; -fx-font-size: 20; -fx-cursor: hand; -fx-text-fill: " + (on ? "#ff5500" : "#777") + ";";
     }
 
     @FXML private void handleLike() {
-        if (currentlyPlayingSong == null) return;
+        if (currentlyPlayingSong == null || libraryManager == null) return;
         boolean removed = favoriteSongs.removeIf(s -> s.filePath().equals(currentlyPlayingSong.filePath()));
         if (!removed) favoriteSongs.add(currentlyPlayingSong);
         updateLikeButtonIcon();
@@ -327,24 +498,103 @@ public class MainController {
     @FXML private void showFavorites() { updateGrid(new ArrayList<>(favoriteSongs)); }
     @FXML private void showAllSongs() { updateGrid(songList); }
     @FXML private void showArtists() {
-        albumGrid.getChildren().clear();
-        for (Artist a : libraryManager.getArtistsHierarchy(songList)) {
-            VBox card = createBaseCard(a.name(), a.albums().size() + " альбомов");
-            card.setOnMouseClicked(e -> {
-                albumGrid.getChildren().clear();
-                for (Album al : a.albums()) {
-                    VBox ac = createBaseCard(al.title(), al.artistName());
-                    ac.setOnMouseClicked(ev -> updateGrid(al.songs()));
-                    albumGrid.getChildren().add(ac);
-                }
-            });
-            albumGrid.getChildren().add(card);
-        }
+        if (libraryManager == null) return;
+        displayedSongs = List.of();
+        HierarchyIndex hierarchy = libraryManager.getHierarchy();
+        albumGrid.setItems(hierarchy.artists(), new CardGrid.CardAdapter<>() {
+            @Override
+            public String title(String artist) { return artist; }
+
+            @Override
+            public String subtitle(String artist) { return hierarchy.albumCount(artist) + " альбомов"; }
+
+            @Override
+            public void onClick(MouseEvent e, String artist) { showAlbums(artist); }
+        });
+    }
+
+    private void showAlbums(String artist) {
+        albumGrid.setItems(libraryManager.getHierarchy().albums(artist), new CardGrid.CardAdapter<>() {
+            @Override
+            public String title(Album al) { return al.title(); }
+
+            @Override
+            public String subtitle(Album al) { return al.artistName(); }
+
+            @Override
+            public void onClick(MouseEvent e, Album al) { updateGrid(al.songs()); }
+
+            @Override
+            public Song artwork(Album al) { return al.songs().isEmpty() ? null : al.songs().get(0); }
+        });
+    }
+
+    @FXML private void handleFindDuplicates() {
+        taskRunner.submit(new LibraryTask<List<DuplicateGroup>>("Поиск дубликатов", songs -> {}) {
+            @Override
+            protected List<DuplicateGroup> call() {
+                return libraryManager.findDuplicates(batchListener());
+            }
+
+            @Override
+            protected void succeeded() {
+                showDuplicates(getValue());
+            }
+        });
+    }
+
+    /** Группы дубликатов карточками; клик открывает треки группы, лишние удаляются из их меню. */
+    private void showDuplicates(List<DuplicateGroup> groups) {
+        displayedSongs = List.of();
+        albumGrid.setItems(groups, new CardGrid.CardAdapter<>() {
+            @Override
+            public String title(DuplicateGroup g) { return g.songs().get(0).title(); }
+
+            @Override
+            public String subtitle(DuplicateGroup g) {
+                String reason = switch (g.reason()) {
+                    case IDENTICAL_CONTENT -> "одинаковый звук";
+                    case SIMILAR_AUDIO -> "похожий звук";
+                    case SAME_TAGS -> "одинаковые теги";
+                };
+                return "копий: " + g.songs().size() + " · " + reason;
+            }
+
+            @Override
+            public void onClick(MouseEvent e, DuplicateGroup g) { updateGrid(g.songs()); }
+
+            @Override
+            public Song artwork(DuplicateGroup g) { return g.songs().get(0); }
+        });
     }
 
     @FXML private void handleOpenDirectory() {
         File dir = new DirectoryChooser().showDialog(null);
-        if (dir != null) { songList.setAll(libraryManager.scanDirectory(dir.toPath())); showAllSongs(); }
+        if (dir == null) return;
+        showAllSongs();
+        // Пачки к этому моменту уже в библиотеке — сетка просто сверяется с ней
+        taskRunner.submit(new LibraryTask<Void>("Сканирование " + dir.getName(), batch -> songList.refresh()) {
+            @Override
+            protected Void call() {
+                libraryManager.scanDirectory(dir.toPath(), batchListener());
+                // Отменённая задача помечена сразу, а сканирование дописывает начатые пачки —
+                // сверяем список, когда оно действительно остановилось
+                if (isCancelled()) Platform.runLater(songList::refresh);
+                return null;
+            }
+
+            @Override
+            protected boolean stopCooperatively() {
+                libraryManager.cancelScan();
+                return true;
+            }
+
+            @Override
+            protected void succeeded() {
+                // Пересканированные песни могли обновиться — сверяем список с библиотекой
+                songList.refresh();
+            }
+        });
     }
 
     @FXML 
@@ -356,23 +606,59 @@ private void handleImportSongs() {
     );
     
     List<File> files = fileChooser.showOpenMultipleDialog(null);
-    if (files != null) {
-        // Импортируем каждый файл
-        files.forEach(libraryManager::importTrackAuto);
-        
-        // ВАЖНО: Вместо сложной цепочки просто обновляем основной список
-        // и сразу перерисовываем сетку
-        songList.setAll(libraryManager.loadPersistedLibrary());
-        showAllSongs(); 
-        
-        System.out.println("Импортировано файлов: " + files.size());
-    }
+    if (files == null) return;
+
+    showAllSongs();
+    List<Path> sources = files.stream().map(File::toPath).toList();
+    taskRunner.submit(new LibraryTask<List<Song>>("Импорт треков", batch -> songList.refresh()) {
+        @Override
+        protected List<Song> call() {
+            List<Song> imported = libraryManager.importTracks(sources, batchListener());
+            if (isCancelled()) Platform.runLater(songList::refresh);
+            return imported;
+        }
+
+        @Override
+        protected void succeeded() {
+            songList.refresh();
+            logger.info("Импортировано файлов: {} из {}", getValue().size(), files.size());
+        }
+
+        @Override
+        protected boolean stopCooperatively() {
+            libraryManager.cancelImport();
+            return true;
+        }
+    });
 }
 
+    /**
+     * Поиск идёт по индексу в фоновом потоке после паузы в наборе.
+     * Номер запроса отсекает устаревшие результаты, если пользователь продолжил печатать.
+     */
     private void setupSearch() {
         searchField.textProperty().addListener((obs, old, val) -> {
-            if (val.isEmpty()) updateGrid(songList);
-            else updateGrid(songList.stream().filter(s -> s.title().toLowerCase().contains(val.toLowerCase())).toList());
+            long generation = searchGeneration.incrementAndGet();
+            if (val.isBlank()) {
+                searchDebounce.stop();
+                if (pendingSearch != null) pendingSearch.cancel(true);
+                updateGrid(songList);
+                return;
+            }
+            searchDebounce.setOnFinished(e -> runSearch(val, generation));
+            searchDebounce.playFromStart();
+        });
+    }
+
+    private void runSearch(String query, long generation) {
+        if (pendingSearch != null) pendingSearch.cancel(true);
+        pendingSearch = searchExecutor.submit(() -> {
+            LibraryManager library = libraryManager;
+            if (generation != searchGeneration.get() || library == null) return;
+            List<Song> results = library.search(query);
+            Platform.runLater(() -> {
+                if (generation == searchGeneration.get()) updateGrid(results);
+            });
         });
     }
 
@@ -390,12 +676,86 @@ private void handleImportSongs() {
         volumeSlider.valueProperty().addListener((obs, old, val) -> audioService.volumeProperty().set(val.doubleValue() / 100.0));
     }
 
+    /**
+     * Открывает и загружает библиотеку в фоне: окно рисуется сразу, песни появляются в сетке пачками.
+     * Сам LibraryManager создаётся здесь же — он читает таблицу номеров треков и заголовки плейлистов.
+     */
     private void loadLibraryAsync() {
-        songList.setAll(libraryManager.loadPersistedLibrary());
-        List<String> favPaths = libraryManager.loadFavoritesPaths();
-        favoriteSongs.clear();
-        songList.forEach(s -> { if (favPaths.contains(s.filePath().toString())) favoriteSongs.add(s); });
         showAllSongs();
+        // От старта до полностью показанной библиотеки, вместе с отрисовкой пачек
+        Timing libraryLoad = Metrics.time("ui.libraryLoad");
+        taskRunner.submit(new LibraryTask<Void>("Загрузка библиотеки", songList::appendLoading) {
+            private final List<String> favPaths = new ArrayList<>();
+
+            @Override
+            public boolean isCancellable() {
+                return false; // Без библиотеки работать нечему
+            }
+
+            @Override
+            protected Void call() {
+                LibraryManager manager = new LibraryManager();
+                // Задачи ставятся в очередь за этой, поэтому видят библиотеку сразу; списку она нужна до первой пачки
+                libraryManager = manager;
+                Platform.runLater(() -> songList.setLibrary(manager));
+                favPaths.addAll(manager.loadFavoritesPaths());
+                manager.loadPersistedLibrary(batchListener());
+                return null;
+            }
+
+            @Override
+            protected void succeeded() {
+                songList.refresh();
+                // Избранное — по ключам, без обхода всей библиотеки; порядок тот, в котором его сохранили
+                favoriteSongs.clear();
+                for (String path : favPaths) {
+                    int key = libraryManager.getSongKey(Paths.get(path));
+                    Song song = key >= 0 ? libraryManager.getSong(key) : null;
+                    if (song != null) favoriteSongs.add(song);
+                }
+                libraryManager.startWatching(change -> Platform.runLater(() -> applyLibraryChange(change)));
+                libraryLoad.close();
+            }
+
+            @Override
+            protected void failed() {
+                libraryLoad.close();
+            }
+
+            @Override
+            protected void cancelled() {
+                libraryLoad.close(); // Только при закрытии приложения
+            }
+        });
+    }
+
+    /**
+     * Изменения из папок библиотеки: убираем старые версии, добавляем новые,
+     * перерисовываем сетку, только если сейчас открыты все треки.
+     * Избранное сверяется по пути: обновлённый трек остаётся в избранном с новыми тегами.
+     */
+    private void applyLibraryChange(LibraryChange change) {
+        songList.refresh();
+
+        Set<Path> removedPaths = change.removed().stream().map(Song::filePath).collect(Collectors.toSet());
+        Map<Path, Song> upserted = new HashMap<>();
+        change.upserted().forEach(s -> upserted.put(s.filePath(), s));
+        favoriteSongs.replaceAll(s -> upserted.getOrDefault(s.filePath(), s));
+        favoriteSongs.removeIf(s -> removedPaths.contains(s.filePath()) && !upserted.containsKey(s.filePath()));
+        // Файл изменился — обложка могла смениться вместе с тегами
+        if (artworkCache != null) change.upserted().forEach(artworkCache::invalidate);
+        if (displayedSongs == songList) showAllSongs();
+    }
+
+    /**
+     * Вызывается из App.stop(): сохраняем несброшенные изменения библиотеки.
+     */
+    public void shutdown() {
+        if (taskRunner != null) taskRunner.shutdown();
+        if (artworkCache != null) artworkCache.shutdown();
+        if (waveformCache != null) waveformCache.shutdown();
+        if (positionPublisher != null) positionPublisher.close();
+        if (libraryManager != null) libraryManager.shutdown();
     }
 
     private void startClock() {
@@ -0,0 +1,87 @@
+package com.soundwave.gui;
+
+import com.soundwave.waveform.Waveform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * Форма волны под ползунком прокрутки: пройденная часть подсвечена.
+ * Без данных рисуется ровная линия, чтобы полоса не пропадала.
+ */
+public class WaveformView extends Region {
+    private static final Color PLAYED = Color.web("#ff5500");
+    private static final Color REMAINING = Color.web("#3a3a3a");
+
+    private final Canvas canvas = new Canvas();
+    private Waveform waveform;
+    private double progress;
+
+    public WaveformView() {
+        getChildren().add(canvas);
+        setMouseTransparent(true);
+        setMinHeight(0);
+        setPrefHeight(36);
+    }
+
+    public void setWaveform(Waveform waveform) {
+        this.waveform = waveform;
+        redraw();
+    }
+
+    /** Доля пройденного, от 0 до 1. */
+    public void setProgress(double progress) {
+        double clamped = Math.max(0, Math.min(1, progress));
+        if (clamped == this.progress) return;
+        this.progress = clamped;
+        redraw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = snapSizeX(getWidth());
+        double height = snapSizeY(getHeight());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            redraw();
+        }
+    }
+
+    private void redraw() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, width, height);
+        if (width <= 0 || height <= 0) return;
+
+        double middle = height / 2;
+        double playedX = width * progress;
+        if (waveform == null || waveform.columns() == 0) {
+            g.setFill(PLAYED);
+            g.fillRect(0, middle - 1, playedX, 2);
+            g.setFill(REMAINING);
+            g.fillRect(playedX, middle - 1, width - playedX, 2);
+            return;
+        }
+
+        // Столбик на каждые 2 пикселя, значение — крайние пики попавших в него столбцов сводки
+        int columns = waveform.columns();
+        double half = middle - 1;
+        for (int x = 0; x < width; x += 2) {
+            int from = (int) (x / width * columns);
+            int to = Math.max(from + 1, (int) ((x + 2) / width * columns));
+            int lo = 0;
+            int hi = 0;
+            for (int c = from; c < Math.min(to, columns); c++) {
+                lo = Math.min(lo, waveform.min()[c]);
+                hi = Math.max(hi, waveform.max()[c]);
+            }
+            double top = middle - Math.max(1, hi / 127.0 * half);
+            double bottom = middle + Math.max(1, -lo / 127.0 * half);
+            g.setFill(x < playedX ? PLAYED : REMAINING);
+            g.fillRect(x, top, 1.5, bottom - top);
+        }
+    }
+}
\ No newline at end of file
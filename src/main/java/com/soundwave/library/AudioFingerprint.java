@@ -0,0 +1,173 @@
+package com.soundwave.library;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Отпечаток трека для поиска дубликатов.
+ * contentHash — SHA-256 звуковых данных без тегов: ID3v2/ID3v1, APEv2 в конце MP3 и блоков
+ * метаданных FLAC (Vorbis-комментарии, обложки). Поэтому копии с разными тегами совпадают.
+ * acoustic — грубая акустическая подпись: по биту на каждую пару соседних окон по 100 мс
+ * (громче ли следующее окно) для первых 30 секунд. Она переживает перекодирование и смену громкости.
+ * Считается только для форматов, которые декодирует AudioSystem (WAV, AIFF, AU — несжатый PCM);
+ * для MP3 и FLAC декодера нет и массив пустой, их сравнивают хэш и теги.
+ */
+public record AudioFingerprint(byte[] contentHash, long[] acoustic) {
+    private static final int WINDOW_MILLIS = 100;
+    private static final int MAX_WINDOWS = 300;
+    private static final int MIN_WINDOWS = 20;
+    private static final double MAX_BIT_DIFFERENCE = 0.1;
+    private static final byte[] APE_PREAMBLE = "APETAGEX".getBytes(StandardCharsets.US_ASCII);
+
+    public boolean sameContent(AudioFingerprint other) {
+        return Arrays.equals(contentHash, other.contentHash);
+    }
+
+    /** Похожи ли подписи: отличаются не больше чем в 10% бит. */
+    public boolean soundsLike(AudioFingerprint other) {
+        if (acoustic.length == 0 || acoustic.length != other.acoustic.length) return false;
+        int differing = 0;
+        for (int i = 0; i < acoustic.length; i++) differing += Long.bitCount(acoustic[i] ^ other.acoustic[i]);
+        return differing <= acoustic.length * Long.SIZE * MAX_BIT_DIFFERENCE;
+    }
+
+    public static AudioFingerprint compute(Path file) throws IOException {
+        return new AudioFingerprint(contentHash(file), acoustic(file));
+    }
+
+    static byte[] contentHash(Path file) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long start = 0;
+            long end = channel.size();
+
+            // ID3v2 в начале: "ID3", версия, флаги, размер в 4 байтах по 7 бит
+            ByteBuffer head = ByteBuffer.allocate(10);
+            channel.read(head, 0);
+            if (head.position() == 10 && head.get(0) == 'I' && head.get(1) == 'D' && head.get(2) == '3') {
+                int size = (head.get(6) & 0x7f) << 21 | (head.get(7) & 0x7f) << 14
+                        | (head.get(8) & 0x7f) << 7 | (head.get(9) & 0x7f);
+                boolean footer = (head.get(5) & 0x10) != 0;
+                start = Math.min(end, 10L + size + (footer ? 10 : 0));
+            }
+            start = skipFlacMetadata(channel, start, end);
+            // ID3v1 в конце: 128 байт, начинающиеся с "TAG"
+            if (end - start >= 128) {
+                ByteBuffer tail = ByteBuffer.allocate(3);
+                channel.read(tail, end - 128);
+                if (tail.get(0) == 'T' && tail.get(1) == 'A' && tail.get(2) == 'G') end -= 128;
+            }
+            end = skipApeTag(channel, start, end);
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int n = channel.read(buffer, position);
+                if (n <= 0) break;
+                position += n;
+                buffer.flip();
+                sha.update(buffer);
+            }
+        }
+        return sha.digest();
+    }
+
+    /**
+     * FLAC: "fLaC" и блоки метаданных, у каждого 4 байта заголовка (флаг последнего блока, тип, длина в 3 байтах).
+     * Возвращает начало первого звукового кадра; для других форматов — start без изменений.
+     */
+    private static long skipFlacMetadata(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (end - start < 4 || channel.read(header, start) < 4
+                || header.get(0) != 'f' || header.get(1) != 'L' || header.get(2) != 'a' || header.get(3) != 'C') {
+            return start;
+        }
+        long position = start + 4;
+        boolean last = false;
+        while (!last && position + 4 <= end) {
+            header.clear();
+            if (channel.read(header, position) < 4) break;
+            last = (header.get(0) & 0x80) != 0;
+            int length = (header.get(1) & 0xff) << 16 | (header.get(2) & 0xff) << 8 | (header.get(3) & 0xff);
+            position += 4 + length;
+        }
+        return Math.min(end, position);
+    }
+
+    /**
+     * APEv2 в конце MP3 (перед ID3v1): 32 байта подвала "APETAGEX", в нём размер тега без заголовка
+     * и флаг, есть ли 32-байтный заголовок. Возвращает конец звуковых данных.
+     */
+    private static long skipApeTag(FileChannel channel, long start, long end) throws IOException {
+        if (end - start < 32) return end;
+        ByteBuffer footer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(footer, end - 32) < 32) return end;
+        byte[] preamble = new byte[8];
+        footer.get(0, preamble);
+        if (!Arrays.equals(preamble, APE_PREAMBLE)) return end;
+        long size = footer.getInt(12) & 0xffffffffL;
+        boolean hasHeader = (footer.getInt(20) & 0x80000000) != 0;
+        long tag = size + (hasHeader ? 32 : 0);
+        return tag >= 32 && tag <= end - start ? end - tag : end;
+    }
+
+    static long[] acoustic(Path file) {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(file.toFile())) {
+            AudioFormat f = source.getFormat();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), 16,
+                    f.getChannels(), f.getChannels() * 2, f.getSampleRate(), false);
+            try (AudioInputStream in = f.matches(pcm) ? source : AudioSystem.getAudioInputStream(pcm, source)) {
+                return signature(in, pcm);
+            }
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            return new long[0]; // Формат не декодируется средствами Java — останется сравнение по хэшу и тегам
+        }
+    }
+
+    private static long[] signature(AudioInputStream in, AudioFormat format) throws IOException {
+        int frameSize = format.getFrameSize();
+        int windowFrames = Math.max(1, (int) (format.getSampleRate() * WINDOW_MILLIS / 1000));
+        byte[] window = new byte[windowFrames * frameSize];
+        double[] energy = new double[MAX_WINDOWS];
+        int windows = 0;
+
+        while (windows < MAX_WINDOWS) {
+            int read = in.readNBytes(window, 0, window.length);
+            if (read < window.length) break;
+            double sum = 0;
+            for (int i = 0; i + 1 < read; i += 2) {
+                int sample = (short) ((window[i] & 0xff) | (window[i + 1] << 8));
+                sum += (double) sample * sample;
+            }
+            energy[windows++] = sum;
+        }
+        if (windows < MIN_WINDOWS) return new long[0];
+
+        // Длина подписи фиксирована, чтобы подписи всех длинных треков были сравнимы
+        int bits = windows - 1;
+        long[] result = new long[(bits + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < bits; i++) {
+            if (energy[i + 1] > energy[i]) result[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+        }
+        return result;
+    }
+}
\ No newline at end of file
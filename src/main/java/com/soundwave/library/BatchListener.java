@@ -0,0 +1,19 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.util.List;
+
+/**
+ * Колбэки долгих операций с библиотекой (загрузка, сканирование, импорт):
+ * готовые песни приходят пачками, плюс прогресс.
+ */
+public interface BatchListener {
+    BatchListener NONE = new BatchListener() {};
+
+    /** Очередная пачка песен в порядке обработки. */
+    default void onBatch(List<Song> batch) {}
+
+    /** processed — сколько уже обработано, total — сколько известно на данный момент. */
+    default void onProgress(int processed, int total, boolean totalKnown) {}
+}
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поиск дубликатов в библиотеке.
+ * Отпечатки считаются параллельно и кэшируются в MetadataCache вместе с метаданными,
+ * поэтому повторный поиск пересчитывает только новые и изменённые файлы.
+ * Треки объединяются в группы по одинаковому звуку (хэш), похожему звуку и одинаковым тегам.
+ * Похожий звук сравнивается только у несжатых PCM-форматов (WAV, AIFF, AU): MP3 и FLAC Java не декодирует,
+ * поэтому перекодированные копии в этих форматах находятся только по тегам.
+ */
+public class DuplicateDetector {
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    /** Насколько могут расходиться длительности у копий одного трека. */
+    private static final long MAX_DURATION_DIFFERENCE_SECONDS = 2;
+
+    private final MetadataCache cache;
+    private final int workers;
+
+    DuplicateDetector(MetadataCache cache, int workers) {
+        this.cache = cache;
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Ищет группы дубликатов. Прогресс — по числу обработанных файлов.
+     * Прерывание потока отменяет поиск: вернётся пустой список, посчитанные отпечатки сохранятся.
+     */
+    public List<DuplicateGroup> find(List<Song> songs, BatchListener listener) {
+        AudioFingerprint[] fingerprints = fingerprints(songs, listener);
+        cache.save();
+        if (Thread.currentThread().isInterrupted()) return List.of();
+
+        UnionFind groups = new UnionFind(songs.size());
+        linkIdenticalContent(fingerprints, groups);
+        linkSimilarAudio(songs, fingerprints, groups);
+        linkSameTags(songs, groups);
+
+        List<DuplicateGroup> result = collect(songs, groups);
+        logger.info("Поиск дубликатов: {} треков, {} групп", songs.size(), result.size());
+        return result;
+    }
+
+    private AudioFingerprint[] fingerprints(List<Song> songs, BatchListener listener) {
+        AudioFingerprint[] fingerprints = new AudioFingerprint[songs.size()];
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "fingerprint-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(songs.size());
+            for (int i = 0; i < songs.size(); i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    fingerprints[index] = fingerprint(songs.get(index));
+                    listener.onProgress(processed.incrementAndGet(), songs.size(), true);
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Ошибка вычисления отпечатков", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return fingerprints;
+    }
+
+    private AudioFingerprint fingerprint(Song song) {
+        if (Thread.currentThread().isInterrupted()) return null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(song.filePath(), BasicFileAttributes.class);
+            AudioFingerprint cached = cache.fingerprint(song.filePath(), attrs);
+            if (cached != null) return cached;
+            AudioFingerprint computed = AudioFingerprint.compute(song.filePath());
+            cache.putFingerprint(song.filePath(), attrs, computed);
+            return computed;
+        } catch (IOException | RuntimeException e) {
+            // Один битый файл (кривой заголовок, путь не из этой ФС) не должен обрывать весь поиск
+            logger.debug("Не удалось посчитать отпечаток {}", song.filePath(), e);
+            return null;
+        }
+    }
+
+    private static void linkIdenticalContent(AudioFingerprint[] fingerprints, UnionFind groups) {
+        Map<String, Integer> firstByHash = new HashMap<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i] == null) continue;
+            Integer first = firstByHash.putIfAbsent(HexFormat.of().formatHex(fingerprints[i].contentHash()), i);
+            if (first != null) groups.union(first, i, DuplicateGroup.Reason.IDENTICAL_CONTENT);
+        }
+    }
+
+    /**
+     * Сравнивает подписи только у треков с близкой длительностью: после сортировки
+     * по длительности это скользящее окно, а не все пары библиотеки.
+     */
+    private static void linkSimilarAudio(List<Song> songs, AudioFingerprint[] fingerprints, UnionFind groups) {
+        Integer[] order = new Integer[songs.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> songs.get(i).durationSeconds()));
+
+        for (int a = 0; a < order.length; a++) {
+            AudioFingerprint first = fingerprints[order[a]];
+            if (first == null || first.acoustic().length == 0) continue;
+            long duration = songs.get(order[a]).durationSeconds();
+            for (int b = a + 1; b < order.length; b++) {
+                if (songs.get(order[b]).durationSeconds() - duration > MAX_DURATION_DIFFERENCE_SECONDS) break;
+                AudioFingerprint second = fingerprints[order[b]];
+                if (second != null && first.soundsLike(second)) {
+                    groups.union(order[a], order[b], DuplicateGroup.Reason.SIMILAR_AUDIO);
+                }
+            }
+        }
+    }
+
+    private static void linkSameTags(List<Song> songs, UnionFind groups) {
+        Map<String, List<Integer>> byTags = new HashMap<>();
+        for (int i = 0; i < songs.size(); i++) {
+            Song song = songs.get(i);
+            if (song.title() == null || song.title().isBlank()) continue;
+            String key = SearchIndex.normalize(song.title().strip()) + '\0'
+                    + SearchIndex.normalize(song.artist() == null ? "" : song.artist().strip());
+            byTags.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        for (List<Integer> same : byTags.values()) {
+            for (int a = 0; a < same.size(); a++) {
+                for (int b = a + 1; b < same.size(); b++) {
+                    long difference = Math.abs(songs.get(same.get(a)).durationSeconds()
+                            - songs.get(same.get(b)).durationSeconds());
+                    if (difference <= MAX_DURATION_DIFFERENCE_SECONDS) {
+                        groups.union(same.get(a), same.get(b), DuplicateGroup.Reason.SAME_TAGS);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<DuplicateGroup> collect(List<Song> songs, UnionFind groups) {
+        Map<Integer, List<Integer>> members = new LinkedHashMap<>();
+        for (int i = 0; i < songs.size(); i++) {
+            if (groups.isLinked(i)) members.computeIfAbsent(groups.find(i), r -> new ArrayList<>()).add(i);
+        }
+
+        List<DuplicateGroup> result = new ArrayList<>(members.size());
+        for (List<Integer> group : members.values()) {
+            List<Song> groupSongs = new ArrayList<>(group.size());
+            for (int i : group) groupSongs.add(songs.get(i));
+            result.add(new DuplicateGroup(groupSongs, weakestReason(group, groups)));
+        }
+        return result;
+    }
+
+    /** Основание группы — самая слабая из связей, по которым её собрали. */
+    private static DuplicateGroup.Reason weakestReason(List<Integer> group, UnionFind groups) {
+        DuplicateGroup.Reason weakest = DuplicateGroup.Reason.IDENTICAL_CONTENT;
+        for (int i : group) {
+            DuplicateGroup.Reason reason = groups.reason(i);
+            if (reason != null && reason.compareTo(weakest) > 0) weakest = reason;
+        }
+        return weakest;
+    }
+
+    /**
+     * Система непересекающихся множеств по номерам треков.
+     * Для каждого трека помнит основание, по которому его присоединили к группе.
+     */
+    private static final class UnionFind {
+        private final int[] parent;
+        private final DuplicateGroup.Reason[] reasons;
+
+        UnionFind(int size) {
+            parent = new int[size];
+            reasons = new DuplicateGroup.Reason[size];
+            for (int i = 0; i < size; i++) parent[i] = i;
+        }
+
+        int find(int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+
+        void union(int a, int b, DuplicateGroup.Reason reason) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) return;
+            parent[rootB] = rootA;
+            reasons[b] = weaker(reasons[b], reason);
+            reasons[a] = weaker(reasons[a], reason);
+        }
+
+        boolean isLinked(int i) {
+            return reasons[i] != null;
+        }
+
+        DuplicateGroup.Reason reason(int i) {
+            return reasons[i];
+        }
+
+        private static DuplicateGroup.Reason weaker(DuplicateGroup.Reason current, DuplicateGroup.Reason reason) {
+            return current == null || reason.compareTo(current) > 0 ? reason : current;
+        }
+    }
+}
\ No newline at end of file
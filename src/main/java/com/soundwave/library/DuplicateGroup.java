@@ -0,0 +1,20 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.util.List;
+
+/**
+ * Группа треков, похожих на копии одного и того же. reason — самое слабое основание,
+ * по которому треки попали в группу: насколько ей можно доверять.
+ */
+public record DuplicateGroup(List<Song> songs, Reason reason) {
+    public enum Reason {
+        /** Звуковые данные совпадают байт в байт, отличаются только теги. */
+        IDENTICAL_CONTENT,
+        /** Похожи по звучанию и длительности. */
+        SIMILAR_AUDIO,
+        /** Одинаковые название и исполнитель, близкая длительность. */
+        SAME_TAGS
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Album;
+import com.soundwave.core.Song;
+
+import java.util.*;
+
+/**
+ * Дерево исполнитель → альбом → песни, которое обновляется по событиям LibraryIndex,
+ * а не пересобирается при каждом открытии вида.
+ * Исполнители и альбомы отсортированы без учёта регистра, число альбомов и треков
+ * известно без построения списков. Запросы можно выполнять из любого потока.
+ * В альбомах лежат ключи треков, песни достаются из библиотеки только для открытого исполнителя.
+ */
+public class HierarchyIndex implements LibraryIndex.Listener {
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final LibraryIndex library;
+    private final TreeMap<String, ArtistNode> artists = new TreeMap<>(ORDER);
+    // Отсортированные имена исполнителей; сбрасывается, только когда исполнитель появился или пропал
+    private List<String> artistNames;
+
+    private static final class ArtistNode {
+        final TreeMap<String, IntList> albums = new TreeMap<>(ORDER);
+        int trackCount;
+    }
+
+    public HierarchyIndex(LibraryIndex library) {
+        this.library = library;
+    }
+
+    @Override
+    public synchronized void onAdded(int key, Song song) {
+        ArtistNode artist = artists.get(song.artist());
+        if (artist == null) {
+            artist = new ArtistNode();
+            artists.put(song.artist(), artist);
+            artistNames = null;
+        }
+        IntList album = artist.albums.computeIfAbsent(song.album(), a -> new IntList());
+        int before = album.size;
+        album.insert(key);
+        artist.trackCount += album.size - before;
+    }
+
+    @Override
+    public synchronized void onRemoved(int key, Song song) {
+        ArtistNode artist = artists.get(song.artist());
+        if (artist == null) return;
+        IntList album = artist.albums.get(song.album());
+        if (album == null) return;
+        int before = album.size;
+        album.remove(key);
+        if (album.size == before) return;
+
+        artist.trackCount--;
+        if (album.size == 0) artist.albums.remove(song.album());
+        if (artist.albums.isEmpty()) {
+            artists.remove(song.artist());
+            artistNames = null;
+        }
+    }
+
+    @Override
+    public synchronized void onCleared() {
+        artists.clear();
+        artistNames = null;
+    }
+
+    /** Исполнители по алфавиту. Список неизменяемый и переиспользуется, пока состав не поменялся. */
+    public synchronized List<String> artists() {
+        if (artistNames == null) artistNames = List.copyOf(artists.keySet());
+        return artistNames;
+    }
+
+    public synchronized int artistCount() {
+        return artists.size();
+    }
+
+    public synchronized int albumCount(String artist) {
+        ArtistNode node = artists.get(artist);
+        return node != null ? node.albums.size() : 0;
+    }
+
+    public synchronized int trackCount(String artist) {
+        ArtistNode node = artists.get(artist);
+        return node != null ? node.trackCount : 0;
+    }
+
+    /**
+     * Альбомы исполнителя по алфавиту, песни — в порядке библиотеки.
+     * Списки строятся только для этого исполнителя.
+     */
+    public synchronized List<Album> albums(String artist) {
+        ArtistNode node = artists.get(artist);
+        if (node == null) return List.of();
+        List<Album> result = new ArrayList<>(node.albums.size());
+        for (Map.Entry<String, IntList> e : node.albums.entrySet()) {
+            IntList keys = e.getValue();
+            result.add(new Album(e.getKey(), artist, List.copyOf(library.songs(keys.values, keys.size))));
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Импорт файлов в хранилище: artists/Исполнитель/Альбом/файл.
+ * Теги читаются один раз, из исходного файла. Файлы копируются параллельно через
+ * FileChannel.transferTo (ядро копирует без прохода через кучу), копия сверяется с источником по SHA-256.
+ * Байт в байт совпадающий файл на месте назначения не копируется повторно,
+ * а другой файл с тем же именем не затирается: копия получает имя "имя (2).mp3".
+ */
+public class ImportPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final int BATCH_SIZE = 50;
+    private static final int MAX_NAME_ATTEMPTS = 1000;
+    private static final String PART_SUFFIX = ".part";
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final Function<Path, Song> extractor;
+    private final Path storageRoot;
+    private final int workers;
+
+    private volatile boolean cancelled;
+    private volatile ExecutorService pool;
+
+    public ImportPipeline(Function<Path, Song> extractor, Path storageRoot, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Число потоков импорта должно быть положительным");
+        this.extractor = extractor;
+        this.storageRoot = storageRoot;
+        this.workers = workers;
+    }
+
+    /**
+     * Останавливает импорт. Недокопированные файлы удаляются, {@link #run} вернёт то, что успело импортироваться.
+     */
+    public void cancel() {
+        cancelled = true;
+        ExecutorService running = pool;
+        if (running != null) running.shutdownNow();
+    }
+
+    /**
+     * Импортирует файлы и возвращает песни с путями в хранилище, в порядке sources.
+     * Файлы, которые не удалось скопировать, пропускаются. Колбэки listener вызываются из текущего потока.
+     */
+    public List<Song> run(List<Path> sources, BatchListener listener) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, Math.max(1, sources.size())), r -> {
+            Thread t = new Thread(r, "import-worker-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool = executor;
+
+        List<Song> imported = new ArrayList<>();
+        List<Song> batch = new ArrayList<>(BATCH_SIZE);
+        List<Future<Song>> futures = new ArrayList<>(sources.size());
+        int next = 0;
+        try {
+            for (Path source : sources) futures.add(executor.submit(() -> importFile(source)));
+
+            for (; next < futures.size() && !cancelled; next++) {
+                Song song = await(futures.get(next), sources.get(next));
+                if (song != null) {
+                    imported.add(song);
+                    batch.add(song);
+                }
+                if (batch.size() == BATCH_SIZE || next == futures.size() - 1) {
+                    if (!batch.isEmpty()) listener.onBatch(List.copyOf(batch));
+                    batch.clear();
+                }
+                listener.onProgress(next + 1, sources.size(), true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } catch (RejectedExecutionException e) {
+            // Отменили, пока ставили задачи в очередь
+        } finally {
+            executor.shutdownNow();
+            pool = null;
+        }
+        if (cancelled) collectFinished(executor, futures, next, imported, batch);
+        if (cancelled && !batch.isEmpty()) listener.onBatch(List.copyOf(batch));
+        if (cancelled) logger.info("Импорт отменён, импортировано {} из {} файлов", imported.size(), sources.size());
+        else logger.info("Импортировано {} из {} файлов", imported.size(), sources.size());
+        return imported;
+    }
+
+    /**
+     * После отмены дожидается остановки потоков и забирает файлы, которые успели скопироваться:
+     * иначе они остались бы в хранилище, но не попали в библиотеку. Прерванные копии удаляют себя сами.
+     */
+    private void collectFinished(ExecutorService executor, List<Future<Song>> futures, int from,
+                                 List<Song> imported, List<Song> batch) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Импорт не остановился за {} с, часть скопированных файлов не попадёт в библиотеку",
+                        STOP_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        for (int i = from; i < futures.size(); i++) {
+            Future<Song> future = futures.get(i);
+            if (!future.isDone() || future.isCancelled()) continue;
+            try {
+                Song song = future.get();
+                if (song != null) {
+                    imported.add(song);
+                    batch.add(song);
+                }
+            } catch (ExecutionException e) {
+                // Копия прервана отменой или не удалась — файла в хранилище нет
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private Song await(Future<Song> future, Path source) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("Ошибка импорта: {}", source.getFileName(), e.getCause());
+            return null;
+        }
+    }
+
+    private Song importFile(Path source) throws IOException {
+        Song tags = extractor.apply(source);
+        Path dir = storageRoot.resolve(safeName(tags.artist())).resolve(safeName(tags.album()));
+        Files.createDirectories(dir);
+        Path target = copyInto(source, dir);
+        return new Song(target, tags.title(), tags.artist(), tags.album(), tags.durationSeconds());
+    }
+
+    /**
+     * Находит для файла место в папке и копирует его туда. Если там уже лежит тот же файл, возвращает его.
+     */
+    private Path copyInto(Path source, Path dir) throws IOException {
+        String name = source.getFileName().toString();
+        byte[] sourceHash = null;
+        for (int attempt = 1; attempt <= MAX_NAME_ATTEMPTS; attempt++) {
+            Path target = dir.resolve(attempt == 1 ? name : numbered(name, attempt));
+            if (Files.exists(target)) {
+                if (Files.size(target) != Files.size(source)) continue;
+                if (sourceHash == null) sourceHash = sha256(source);
+                if (Arrays.equals(sourceHash, sha256(target))) {
+                    logger.debug("Уже в хранилище: {}", target);
+                    return target;
+                }
+                continue;
+            }
+            try {
+                // Пустой файл занимает имя, чтобы параллельный импорт не выбрал его же
+                Files.createFile(target);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            copyVerified(source, target, sourceHash);
+            return target;
+        }
+        throw new IOException("Не удалось подобрать свободное имя для " + name + " в " + dir);
+    }
+
+    /**
+     * Копирует во временный .part, сверяет хэши и атомарно подменяет им занятое имя.
+     */
+    private static void copyVerified(Path source, Path target, byte[] sourceHash) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    long n = in.transferTo(position, size - position, out);
+                    if (n <= 0 && in.size() <= position) break;
+                    position += n;
+                }
+                out.force(true);
+            }
+            // Источник хэшируем после копирования: он уже в страничном кэше и второй раз с диска не читается
+            byte[] expected = sourceHash != null ? sourceHash : sha256(source);
+            if (!Arrays.equals(expected, sha256(part))) {
+                throw new IOException("Копия не совпадает с исходным файлом: " + source);
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                sha.update(buffer);
+                buffer.clear();
+            }
+        }
+        return sha.digest();
+    }
+
+    private static String numbered(String name, int number) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0
+                ? name.substring(0, dot) + " (" + number + ")" + name.substring(dot)
+                : name + " (" + number + ")";
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[\\\\/:*?\"<>|]", "_");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.soundwave.library;
+
+import java.util.Arrays;
+
+/**
+ * Список int без упаковки в Integer. insert и remove держат его отсортированным по возрастанию.
+ */
+final class IntList {
+    int[] values = new int[4];
+    int size;
+
+    void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    /** Вставляет значение на его место по порядку; повторно не добавляет. */
+    void insert(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0) return;
+        pos = -pos - 1;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) return;
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
\ No newline at end of file
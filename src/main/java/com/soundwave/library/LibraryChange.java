@@ -0,0 +1,13 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.util.List;
+
+/**
+ * Изменение библиотеки, пришедшее не из интерфейса (например, от наблюдателя за папками).
+ * removed — песни, которые нужно убрать из списков (включая старые версии обновлённых),
+ * upserted — новые и обновлённые песни.
+ */
+public record LibraryChange(List<Song> removed, List<Song> upserted) {
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Индекс библиотеки в памяти: путь → песня с сохранением порядка добавления.
+ * Вставка, замена и удаление по пути — O(1), без перебора всего списка.
+ * Песни лежат в компактном {@link TrackStore}; наружу отдаются собранные из него Song,
+ * а производные индексы получают ключи треков и по ним же потом достают песни.
+ */
+public class LibraryIndex {
+    /**
+     * Производные индексы (поиск и т.п.), которые обновляются вместе с основным.
+     */
+    public interface Listener {
+        /** key — ключ трека в {@link TrackStore}; при замене новой версией он тот же, что у старой. */
+        void onAdded(int key, Song song);
+
+        void onRemoved(int key, Song song);
+
+        void onCleared();
+    }
+
+    private final TrackStore store;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public LibraryIndex() {
+        this(new PathTable());
+    }
+
+    LibraryIndex(PathTable paths) {
+        store = new TrackStore(paths);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Добавляет песню или заменяет существующую с тем же путём.
+     * Обновлённая песня переезжает в конец, как и раньше при removeIf + add.
+     */
+    public Song upsert(Song song) {
+        int existing = store.key(song.filePath());
+        Song previous = existing >= 0 ? store.song(existing) : null;
+        int key = store.upsert(song);
+        for (Listener l : listeners) {
+            if (previous != null) l.onRemoved(key, previous);
+            l.onAdded(key, song);
+        }
+        return previous;
+    }
+
+    public void upsertAll(Collection<Song> songs) {
+        for (Song song : songs) upsert(song);
+    }
+
+    public Song remove(Path path) {
+        int key = store.key(path);
+        Song removed = key >= 0 ? store.remove(key) : null;
+        if (removed != null) {
+            for (Listener l : listeners) l.onRemoved(key, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Удаляет все песни, лежащие внутри папки. Нужен, когда удалена целая папка.
+     */
+    public List<Song> removeUnder(Path dir) {
+        List<Song> removed = new ArrayList<>();
+        for (int key : store.keysUnder(dir)) {
+            Song song = store.remove(key);
+            removed.add(song);
+            for (Listener l : listeners) l.onRemoved(key, song);
+        }
+        return removed;
+    }
+
+    public Song get(Path path) {
+        return store.get(path);
+    }
+
+    public boolean contains(Path path) {
+        return store.contains(path);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /** Ключи треков в порядке добавления: по ним песни достаются через {@link #song(int)}. */
+    public int[] keys() {
+        return store.keys();
+    }
+
+    public int key(Path path) {
+        return store.key(path);
+    }
+
+    /** Песня по ключу или null, если трека уже нет. Можно вызывать из любого потока. */
+    public Song song(int key) {
+        return store.song(key);
+    }
+
+    /** Песни по первым count ключам в порядке библиотеки, без уже удалённых. Можно вызывать из любого потока. */
+    public List<Song> songs(int[] keys, int count) {
+        return store.songs(keys, count);
+    }
+
+    public void replaceAll(Collection<Song> songs) {
+        store.clear();
+        for (Listener l : listeners) l.onCleared();
+        upsertAll(songs);
+    }
+
+    /**
+     * Снимок песен в порядке добавления.
+     */
+    public List<Song> songs() {
+        return store.songs();
+    }
+}
\ No newline at end of file
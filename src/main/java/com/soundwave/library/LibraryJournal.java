@@ -0,0 +1,85 @@
+package com.soundwave.library;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Журнал изменений библиотеки: дописываемый в конец текстовый файл,
+ * по одной записи на строку — "A\tпуть", "U\tпуть" или "R\tпуть".
+ * Недописанная последняя строка (сбой во время записи) при чтении отбрасывается.
+ */
+class LibraryJournal {
+    enum Op { ADD, UPDATE, REMOVE }
+
+    record Entry(Op op, String path) {}
+
+    private final Path file;
+    private int size;
+
+    LibraryJournal(Path file) {
+        this.file = file;
+    }
+
+    /** Количество записей в файле журнала. */
+    int size() {
+        return size;
+    }
+
+    List<Entry> read() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            size = 0;
+            return entries;
+        }
+
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            if (line.length() < 3 || line.charAt(1) != '\t') continue;
+            Op op = switch (line.charAt(0)) {
+                case 'A' -> Op.ADD;
+                case 'U' -> Op.UPDATE;
+                case 'R' -> Op.REMOVE;
+                default -> null;
+            };
+            if (op != null) entries.add(new Entry(op, line.substring(2)));
+        }
+        size = entries.size();
+        return entries;
+    }
+
+    /**
+     * Дописывает записи одним вызовом и сбрасывает их на диск.
+     */
+    void append(Collection<Entry> entries) throws IOException {
+        if (entries.isEmpty()) return;
+
+        StringBuilder sb = new StringBuilder(entries.size() * 64);
+        for (Entry entry : entries) {
+            sb.append(entry.op().name().charAt(0)).append('\t').append(entry.path()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        }
+        size += entries.size();
+    }
+
+    void truncate() throws IOException {
+        Files.deleteIfExists(file);
+        size = 0;
+    }
+}
\ No newline at end of file
@@ -1,9 +1,9 @@
 package com.soundwave.library;
 
-import com.soundwave.core.Album;
-import com.soundwave.core.Artist;
 import com.soundwave.core.Playlist;
 import com.soundwave.core.Song;
+import com.soundwave.metrics.Metrics;
+import com.soundwave.metrics.Timing;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.tag.FieldKey;
@@ -14,27 +14,54 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class LibraryManager {
     private static final Logger logger = LoggerFactory.getLogger(LibraryManager.class);
-    private final LibraryRepository repository = new LibraryRepository();
-    private List<Song> currentSongs = new ArrayList<>();
+    private final LibraryRepository repository;
+    // Общая таблица путей: каждый путь в памяти один раз, на него ссылаются и библиотека, и номера треков
+    private final PathTable paths = new PathTable();
+    private final LibraryIndex index = new LibraryIndex(paths);
+    private final SearchIndex searchIndex = new SearchIndex(index);
+    private final HierarchyIndex hierarchyIndex = new HierarchyIndex(index);
+    private final TrackIds trackIds;
+    private final PlaylistStore playlistStore;
     private List<Playlist> playlists = new ArrayList<>();
+    private int scanThreads = ScanPipeline.DEFAULT_WORKERS;
+    private volatile ScanPipeline activeScan;
+    private volatile ImportPipeline activeImport;
+    private LibraryWatcher watcher;
+    private volatile Consumer<LibraryChange> changeListener = change -> {};
     
     // --- ПРАВИЛЬНЫЕ ПУТИ ДЛЯ EXE ---
     // Данные теперь хранятся в C:\Users\Имя\AppData\Roaming\SoundWave
     private static final String STORAGE_DIR = System.getProperty("user.home") + File.separator + ".soundwave";
     private static final String PLAYLISTS_FILE = STORAGE_DIR + File.separator + "playlists.dat";
     private static final String FAVORITES_FILE = STORAGE_DIR + File.separator + "favorites.txt";
+    private static final String ROOTS_FILE = STORAGE_DIR + File.separator + "roots.txt";
 
     public LibraryManager() {
         ensureStorageDirectory();
+        repository = new LibraryRepository(Paths.get(STORAGE_DIR));
+        trackIds = loadTrackIds();
+        playlistStore = new PlaylistStore(Paths.get(STORAGE_DIR, "playlists"), trackIds);
+        index.addListener(searchIndex);
+        index.addListener(hierarchyIndex);
+        index.addListener(trackIds);
         loadPlaylists();
     }
 
+    /** Папка данных приложения (~/.soundwave). Известна до создания LibraryManager. */
+    public static Path getStorageDir() {
+        return Paths.get(STORAGE_DIR);
+    }
+
     private void ensureStorageDirectory() {
         try {
             Files.createDirectories(Paths.get(STORAGE_DIR));
@@ -47,24 +74,29 @@ public class LibraryManager {
     }
 
     public List<Song> loadPersistedLibrary() {
-        List<Song> loaded = repository.load();
-        this.currentSongs = (loaded != null) ? new ArrayList<>(loaded) : new ArrayList<>();
-        logger.info("Загружено из памяти: {} треков", currentSongs.size());
-        return currentSongs;
+        return loadPersistedLibrary(BatchListener.NONE);
+    }
+
+    /**
+     * Загружает сохранённую библиотеку. Песни приходят в listener пачками ещё до конца загрузки;
+     * сама библиотека блокируется только на время замены индекса.
+     */
+    public List<Song> loadPersistedLibrary(BatchListener listener) {
+        List<Song> loaded = repository.load(listener);
+        synchronized (this) {
+            index.replaceAll(loaded != null ? loaded : List.of());
+            trackIds.flush();
+            logger.info("Загружено из памяти: {} треков", index.size());
+            return index.songs();
+        }
     }
 
     // --- УПРАВЛЕНИЕ ПЕСНЯМИ ---
 
-    public void removeSong(Song song) {
-        String pathStr = song.filePath().toString();
-        currentSongs.removeIf(s -> s.filePath().toString().equals(pathStr));
-        
-        for (Playlist p : playlists) {
-            p.getSongPaths().remove(pathStr);
-        }
-        
-        updateLibrary(currentSongs);
-        savePlaylists();
+    public synchronized void removeSong(Song song) {
+        index.remove(song.filePath());
+        repository.recordRemove(song.filePath());
+        removeFromPlaylists(song.filePath());
         logger.info("Песня удалена из библиотеки: {}", song.title());
     }
 
@@ -104,113 +136,224 @@ public class LibraryManager {
 
     // --- УПРАВЛЕНИЕ ПЛЕЙЛИСТАМИ ---
 
-    private void savePlaylists() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(PLAYLISTS_FILE))) {
-            oos.writeObject(playlists);
-            logger.info("Плейлисты синхронизированы.");
+    private TrackIds loadTrackIds() {
+        TrackIds ids = new TrackIds(Paths.get(STORAGE_DIR, "tracks.bin"), paths);
+        ids.load();
+        return ids;
+    }
+
+    private void loadPlaylists() {
+        try {
+            playlists = new ArrayList<>(playlistStore.load(Paths.get(PLAYLISTS_FILE)));
+            logger.info("Загружено плейлистов: {}", playlists.size());
         } catch (IOException e) {
-            logger.error("Ошибка при сохранении плейлистов", e);
+            logger.error("Ошибка при загрузке плейлистов", e);
+            playlists = new ArrayList<>();
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void loadPlaylists() {
-        File file = new File(PLAYLISTS_FILE);
-        if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                playlists = (List<Playlist>) ois.readObject();
-                logger.info("Загружено плейлистов: {}", playlists.size());
-            } catch (Exception e) {
-                logger.error("Ошибка при загрузке плейлистов", e);
-                playlists = new ArrayList<>();
+    /**
+     * Убирает трек из всех плейлистов. Переписываются только плейлисты, где он был.
+     */
+    private void removeFromPlaylists(Path path) {
+        int id = trackIds.find(path);
+        if (id < 0) return;
+        for (Playlist p : playlists) {
+            if (!p.remove(id)) continue;
+            try {
+                playlistStore.rewrite(p);
+            } catch (IOException e) {
+                logger.error("Ошибка при сохранении плейлиста {}", p.getName(), e);
             }
         }
     }
 
-    public List<Playlist> getPlaylists() { return playlists; }
+    public synchronized List<Playlist> getPlaylists() { return playlists; }
+
+    /**
+     * Песни плейлиста, найденные через индекс библиотеки. Пути, которых нет в библиотеке, пропускаются.
+     */
+    public synchronized List<Song> getPlaylistSongs(Playlist playlist) {
+        int[] ids = playlist.getTrackIds();
+        List<Song> songs = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Path path = trackIds.path(id);
+            Song song = path != null ? index.get(path) : null;
+            if (song != null) songs.add(song);
+        }
+        return songs;
+    }
 
-    public void createPlaylist(String name) {
+    public synchronized void createPlaylist(String name) {
         if (playlists.stream().noneMatch(p -> p.getName().equalsIgnoreCase(name))) {
-            playlists.add(new Playlist(name));
-            savePlaylists();
+            Playlist playlist = new Playlist(name);
+            try {
+                playlistStore.create(playlist);
+            } catch (IOException e) {
+                logger.error("Ошибка при сохранении плейлиста {}", name, e);
+                return;
+            }
+            playlists.add(playlist);
             logger.info("Создан плейлист: {}", name);
         }
     }
 
-    public void deletePlaylist(Playlist playlist) {
+    public synchronized void deletePlaylist(Playlist playlist) {
         if (playlists.remove(playlist)) {
-            savePlaylists();
+            try {
+                playlistStore.delete(playlist);
+            } catch (IOException e) {
+                logger.error("Ошибка при удалении плейлиста {}", playlist.getName(), e);
+            }
             logger.info("Плейлист удален.");
         }
     }
 
     public void addSongToPlaylist(String playlistName, Song song) {
-        playlists.stream()
-                .filter(p -> p.getName().equals(playlistName))
+        addSongsToPlaylist(playlistName, List.of(song));
+    }
+
+    /**
+     * Добавляет песни, которых ещё нет в плейлисте, одной дописью в его файл.
+     */
+    public synchronized void addSongsToPlaylist(String playlistName, Collection<Song> songs) {
+        Playlist p = playlists.stream()
+                .filter(pl -> pl.getName().equals(playlistName))
                 .findFirst()
-                .ifPresent(p -> {
-                    String path = song.filePath().toString();
-                    if (!p.getSongPaths().contains(path)) {
-                        p.addSong(path);
-                        savePlaylists();
-                        logger.info("Песня добавлена в плейлист {}", playlistName);
-                    }
-                });
+                .orElse(null);
+        if (p == null) return;
+        if (!trackIds.isAvailable()) {
+            logger.error("Плейлист {} не изменён: таблица номеров треков недоступна", playlistName);
+            return;
+        }
+
+        int[] added = new int[songs.size()];
+        int count = 0;
+        for (Song song : songs) {
+            int id = trackIds.idOf(song.filePath());
+            if (p.add(id)) added[count++] = id;
+        }
+        if (count == 0) return;
+
+        trackIds.flush();
+        try {
+            playlistStore.append(p, Arrays.copyOf(added, count));
+            logger.info("Добавлено песен в плейлист {}: {}", playlistName, count);
+        } catch (IOException e) {
+            logger.error("Ошибка при сохранении плейлиста {}", playlistName, e);
+        }
     }
 
     // --- ИМПОРТ И СКАН ---
 
-    public void importTrackAuto(File sourceFile) {
+    /**
+     * Копирует трек в хранилище и добавляет его в библиотеку. Возвращает null при ошибке.
+     */
+    public Song importTrackAuto(File sourceFile) {
+        List<Song> imported = importTracks(List.of(sourceFile.toPath()), BatchListener.NONE);
+        return imported.isEmpty() ? null : imported.get(0);
+    }
+
+    /**
+     * Копирует треки в хранилище параллельно и добавляет их в библиотеку пачками по мере готовности.
+     * listener получает те же пачки и прогресс. Возвращает импортированные песни.
+     */
+    public List<Song> importTracks(List<Path> sourceFiles, BatchListener listener) {
+        ImportPipeline pipeline = new ImportPipeline(this::extractMetadata, Paths.get(STORAGE_DIR, "artists"), scanThreads);
+        activeImport = pipeline;
+        List<Song> imported;
         try {
-            AudioFile f = AudioFileIO.read(sourceFile);
-            Tag tag = f.getTag();
-            String artist = (tag != null && !tag.getFirst(FieldKey.ARTIST).isEmpty()) 
-                    ? tag.getFirst(FieldKey.ARTIST) : "Unknown Artist";
-            String album = (tag != null && !tag.getFirst(FieldKey.ALBUM).isEmpty()) 
-                    ? tag.getFirst(FieldKey.ALBUM) : "Unknown Album";
-            
-            artist = artist.replaceAll("[\\\\/:*?\"<>|]", "_");
-            album = album.replaceAll("[\\\\/:*?\"<>|]", "_");
-
-            // Копируем файлы в личную папку пользователя, где всегда есть доступ
-            Path targetDir = Paths.get(STORAGE_DIR, "artists", artist, album);
-            Files.createDirectories(targetDir);
-            Path targetPath = targetDir.resolve(sourceFile.getName());
-            Files.copy(sourceFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-
-            Song newSong = extractMetadata(targetPath);
-            currentSongs.removeIf(s -> s.filePath().toString().equals(newSong.filePath().toString()));
-            currentSongs.add(newSong);
-            
-            updateLibrary(currentSongs);
-            logger.info("Трек импортирован в хранилище: {}", newSong.title());
-        } catch (Exception e) {
-            logger.error("Ошибка авто-импорта: " + sourceFile.getName(), e);
+            imported = pipeline.run(sourceFiles, new BatchListener() {
+                @Override
+                public void onBatch(List<Song> batch) {
+                    synchronized (LibraryManager.this) {
+                        index.upsertAll(batch);
+                        batch.forEach(repository::recordUpsert);
+                    }
+                    listener.onBatch(batch);
+                }
+
+                @Override
+                public void onProgress(int processed, int total, boolean totalKnown) {
+                    listener.onProgress(processed, total, totalKnown);
+                }
+            });
+        } finally {
+            activeImport = null;
         }
+        trackIds.flush();
+        return imported;
+    }
+
+    /**
+     * Прерывает текущий импорт, если он идёт. Уже скопированные треки остаются в библиотеке.
+     */
+    public void cancelImport() {
+        ImportPipeline pipeline = activeImport;
+        if (pipeline != null) pipeline.cancel();
     }
 
     public List<Song> scanDirectory(Path rootPath) {
-        try (Stream<Path> paths = Files.walk(rootPath)) {
-            List<Song> scannedSongs = paths
-                    .filter(Files::isRegularFile)
-                    .filter(this::isSupportedAudioFile)
-                    .map(this::extractMetadata)
-                    .toList();
-
-            for (Song newSong : scannedSongs) {
-                currentSongs.removeIf(s -> s.filePath().toString().equals(newSong.filePath().toString()));
-                currentSongs.add(newSong);
-            }
-            updateLibrary(currentSongs);
-            return currentSongs;
+        return scanDirectory(rootPath, BatchListener.NONE);
+    }
+
+    /**
+     * Сканирует папку параллельно. Пачки песен сливаются в библиотеку по мере готовности,
+     * listener получает те же пачки и прогресс.
+     */
+    public List<Song> scanDirectory(Path rootPath, BatchListener listener) {
+        addWatchedRoot(rootPath);
+        ScanPipeline pipeline = new ScanPipeline(this::extractMetadata, this::isSupportedAudioFile, scanThreads);
+        activeScan = pipeline;
+        try (Timing ignored = Metrics.time("library.scan")) {
+            pipeline.run(rootPath, new BatchListener() {
+                @Override
+                public void onBatch(List<Song> batch) {
+                    Metrics.counter("library.filesScanned").add(batch.size());
+                    synchronized (LibraryManager.this) {
+                        index.upsertAll(batch);
+                        batch.forEach(repository::recordUpsert);
+                    }
+                    listener.onBatch(batch);
+                }
+
+                @Override
+                public void onProgress(int processed, int discovered, boolean walkFinished) {
+                    listener.onProgress(processed, discovered, walkFinished);
+                }
+            });
         } catch (IOException e) {
             logger.error("Ошибка сканирования", e);
-            return currentSongs;
+        } finally {
+            activeScan = null;
         }
+        repository.flush();
+        trackIds.flush();
+        return getSongs();
+    }
+
+    /**
+     * Прерывает текущее сканирование, если оно идёт. Уже разобранные песни остаются в библиотеке.
+     */
+    public void cancelScan() {
+        ScanPipeline pipeline = activeScan;
+        if (pipeline != null) pipeline.cancel();
+    }
+
+    /**
+     * Ищет дубликаты среди песен библиотеки. Отпечатки кэшируются, поэтому повторный
+     * поиск считает только новые и изменённые файлы. Отмена — прерыванием потока.
+     */
+    public List<DuplicateGroup> findDuplicates(BatchListener listener) {
+        return new DuplicateDetector(repository.metadataCache(), scanThreads).find(getSongs(), listener);
+    }
+
+    public void setScanThreads(int threads) {
+        this.scanThreads = Math.max(1, threads);
     }
 
     public Song extractMetadata(Path path) {
-        try {
+        try (Timing ignored = Metrics.time("library.tagParse")) {
             AudioFile f = AudioFileIO.read(path.toFile());
             Tag tag = f.getTag();
             int durationSeconds = f.getAudioHeader().getTrackLength();
@@ -222,37 +365,191 @@ public class LibraryManager {
             String album = (tag != null && !tag.getFirst(FieldKey.ALBUM).isEmpty())
                     ? tag.getFirst(FieldKey.ALBUM) : "Unknown Album";
 
-            return new Song(path, title, artist, album, formatDuration(durationSeconds), durationSeconds);
+            return new Song(path, title, artist, album, durationSeconds);
         } catch (Exception e) {
-            return new Song(path, path.getFileName().toString(), "Unknown", "Unknown", "0:00", 0);
+            Metrics.counter("library.tagErrors").increment();
+            return new Song(path, path.getFileName().toString(), "Unknown", "Unknown", 0);
         }
     }
 
-    public void updateLibrary(List<Song> newSongs) {
-        this.currentSongs = new ArrayList<>(newSongs);
-        repository.save(this.currentSongs);
+    public synchronized void updateLibrary(List<Song> newSongs) {
+        index.replaceAll(newSongs);
+        repository.save(index.songs());
     }
 
-    public List<Artist> getArtistsHierarchy(List<Song> allSongs) {
-        return allSongs.stream()
-                .collect(Collectors.groupingBy(Song::artist,
-                        Collectors.groupingBy(Song::album)))
-                .entrySet().stream()
-                .map(artistEntry -> {
-                    List<Album> albums = artistEntry.getValue().entrySet().stream()
-                            .map(albumEntry -> new Album(albumEntry.getKey(), artistEntry.getKey(), albumEntry.getValue()))
-                            .toList();
-                    return new Artist(artistEntry.getKey(), albums);
-                })
-                .toList();
+    /**
+     * Поиск по названию, исполнителю и альбому. Не блокирует библиотеку, можно звать из фонового потока.
+     */
+    public List<Song> search(String query) {
+        return searchIndex.search(query);
+    }
+
+    public synchronized List<Song> getSongs() {
+        return index.songs();
+    }
+
+    /**
+     * Ключи треков в порядке библиотеки. Песни по ним собираются при обращении через {@link #getSong(int)},
+     * так что список ключей заменяет список песен там, где их нужно держать долго (например, в интерфейсе).
+     */
+    public int[] getSongKeys() {
+        return index.keys();
+    }
+
+    /** Песня по ключу или null, если её уже удалили. Блокирует только хранилище, не всю библиотеку. */
+    public Song getSong(int key) {
+        return index.song(key);
+    }
+
+    /** Ключ песни с этим путём или -1, если её нет в библиотеке. */
+    public int getSongKey(Path path) {
+        return index.key(path);
+    }
+
+    /**
+     * Дописывает несохранённые изменения на диск. Вызывается при закрытии приложения.
+     */
+    public void shutdown() {
+        cancelScan();
+        cancelImport();
+        synchronized (this) {
+            if (watcher != null) watcher.close();
+        }
+        repository.close();
+        trackIds.flush();
+    }
+
+    // --- НАБЛЮДЕНИЕ ЗА ПАПКАМИ ---
+
+    /**
+     * Начинает следить за всеми ранее просканированными папками.
+     * listener получает изменения из потока наблюдателя.
+     */
+    public synchronized void startWatching(Consumer<LibraryChange> listener) {
+        this.changeListener = listener;
+        if (watcher != null) return;
+        try {
+            watcher = new LibraryWatcher(this::isSupportedAudioFile, new LibraryWatcher.Listener() {
+                @Override
+                public void onChanges(Set<Path> changed, Set<Path> removed) {
+                    applyFileChanges(changed, removed);
+                }
+
+                @Override
+                public void onOverflow(Path root) {
+                    rescanWatchedRoot(root);
+                }
+            });
+            for (Path root : loadWatchedRoots()) {
+                if (Files.isDirectory(root)) watcher.addRoot(root);
+            }
+        } catch (IOException e) {
+            logger.error("Не удалось запустить наблюдение за папками", e);
+        }
+    }
+
+    /**
+     * Применяет к библиотеке и плейлистам только разницу: новые, изменённые и удалённые файлы.
+     */
+    public void applyFileChanges(Set<Path> changed, Set<Path> removed) {
+        // Теги читаем вне блокировки, чтобы не держать интерфейс
+        List<Song> parsed = new ArrayList<>(changed.size());
+        for (Path path : changed) parsed.add(extractMetadata(path));
+        mergeChanges(parsed, removed);
+    }
+
+    private void rescanWatchedRoot(Path root) {
+        try {
+            List<Song> scanned = new ScanPipeline(this::extractMetadata, this::isSupportedAudioFile, scanThreads)
+                    .run(root, BatchListener.NONE);
+            mergeChanges(scanned, Set.of());
+        } catch (IOException e) {
+            logger.error("Ошибка пересканирования папки {}", root, e);
+        }
+    }
+
+    private void mergeChanges(List<Song> upserted, Set<Path> removedPaths) {
+        List<Song> removed = new ArrayList<>();
+        synchronized (this) {
+            List<Song> gone = new ArrayList<>();
+            for (Path path : removedPaths) {
+                Song old = index.remove(path);
+                if (old != null) gone.add(old);
+                else gone.addAll(index.removeUnder(path)); // Удалена целая папка
+            }
+
+            for (Song song : gone) {
+                repository.recordRemove(song.filePath());
+                removeFromPlaylists(song.filePath());
+            }
+            removed.addAll(gone);
+
+            for (Song song : upserted) {
+                Song old = index.upsert(song);
+                if (old != null) removed.add(old);
+                repository.recordUpsert(song);
+            }
+        }
+        if (!removed.isEmpty() || !upserted.isEmpty()) {
+            changeListener.accept(new LibraryChange(removed, upserted));
+        }
+    }
+
+    private synchronized void addWatchedRoot(Path root) {
+        Path normalized = root.toAbsolutePath().normalize();
+        Set<Path> roots = loadWatchedRoots();
+        if (roots.add(normalized)) {
+            try {
+                Files.write(Paths.get(ROOTS_FILE), roots.stream().map(Path::toString).toList());
+            } catch (IOException e) {
+                logger.error("Ошибка при сохранении списка папок библиотеки", e);
+            }
+        }
+        if (watcher != null) watcher.addRoot(normalized);
+    }
+
+    /** Папки, которые когда-либо сканировались; их пересканирует CLI и отслеживает наблюдатель. */
+    public List<Path> getWatchedRoots() {
+        return List.copyOf(loadWatchedRoots());
+    }
+
+    /**
+     * Убирает из библиотеки и плейлистов треки, чьих файлов больше нет. Возвращает их число.
+     */
+    public int pruneMissing() {
+        Set<Path> missing = getSongs().stream()
+                .map(Song::filePath)
+                .filter(path -> !Files.exists(path))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) mergeChanges(List.of(), missing);
+        repository.flush();
+        return missing.size();
+    }
+
+    private Set<Path> loadWatchedRoots() {
+        Set<Path> roots = new LinkedHashSet<>();
+        try {
+            Path path = Paths.get(ROOTS_FILE);
+            if (Files.exists(path)) {
+                for (String line : Files.readAllLines(path)) {
+                    if (!line.isBlank()) roots.add(Paths.get(line));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Ошибка при загрузке списка папок библиотеки", e);
+        }
+        return roots;
+    }
+
+    /**
+     * Исполнители и альбомы библиотеки. Поддерживается вместе с индексом, общий для всех видов.
+     */
+    public HierarchyIndex getHierarchy() {
+        return hierarchyIndex;
     }
 
     private boolean isSupportedAudioFile(Path path) {
         String name = path.toString().toLowerCase();
         return name.endsWith(".mp3") || name.endsWith(".wav") || name.endsWith(".flac") || name.endsWith(".m4a");
     }
-
-    private String formatDuration(int seconds) {
-        return String.format("%d:%02d", seconds / 60, seconds % 60);
-    }
 }
\ No newline at end of file
@@ -1,47 +1,391 @@
 package com.soundwave.library;
 
 import com.soundwave.core.Song;
+import com.soundwave.metrics.Metrics;
+import com.soundwave.metrics.Timing;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Хранилище библиотеки в ~/.soundwave: JSON-снимок library.json (пути с тегами, см. {@link LibrarySnapshot})
+ * плюс журнал изменений library.journal. Изменения копятся в памяти и сбрасываются в журнал одной записью
+ * после короткой паузы, а когда журнал разрастается — сворачиваются в новый снимок через атомарное переименование.
+ * Библиотека прежних версий (library.txt и журнал в текущей папке) читается, если снимка ещё нет.
+ */
 public class LibraryRepository {
-    private static final String STORAGE_FILE = "library.txt";
+    private static final Logger logger = LoggerFactory.getLogger(LibraryRepository.class);
+    private static final String SNAPSHOT_FILE = "library.json";
+    private static final String JOURNAL_FILE = "library.journal";
+    private static final String UNREADABLE_SUFFIX = ".unreadable";
+    // Прежние версии писали список путей и журнал в текущую папку
+    private static final Path LEGACY_SNAPSHOT_FILE = Paths.get("library.txt");
+    private static final Path LEGACY_JOURNAL_FILE = Paths.get("library.journal");
+    private static final String METADATA_FILE = "metadata.bin";
 
-    public void save(List<Song> songs) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(STORAGE_FILE))) {
-            for (Song song : songs) {
-                // Используем правильное имя метода filePath() из твоего Record
-                writer.println(song.filePath().toAbsolutePath().toString());
+    private static final long FLUSH_DELAY_MS = 500;
+    private static final int MIN_COMPACT_RECORDS = 1000;
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final MetadataCache metadataCache;
+    private final LibrarySnapshot snapshot;
+    private final LibraryJournal journal;
+
+    // Пути в том виде, в каком они сейчас лежат на диске (снимок + журнал)
+    private final LinkedHashSet<String> persistedPaths = new LinkedHashSet<>();
+    // Ещё не записанные изменения: путь → песня (null — удаление). Последнее изменение побеждает.
+    private final LinkedHashMap<String, Song> pending = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "library-flush");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> scheduledFlush;
+
+    public LibraryRepository(Path storageDir) {
+        // Кэш читается лениво при первой загрузке, чтобы конструктор не трогал диск
+        this.metadataCache = new MetadataCache(storageDir.resolve(METADATA_FILE));
+        this.snapshot = new LibrarySnapshot(storageDir.resolve(SNAPSHOT_FILE));
+        this.journal = new LibraryJournal(storageDir.resolve(JOURNAL_FILE));
+    }
+
+    /**
+     * Полностью заменяет сохранённую библиотеку.
+     */
+    public synchronized void save(List<Song> songs) {
+        pending.clear();
+        persistedPaths.clear();
+        for (Song song : songs) {
+            persistedPaths.add(key(song.filePath()));
+            if (!metadataCache.contains(song.filePath())) cacheMetadata(song);
+        }
+        metadataCache.retainOnly(songs);
+        compact();
+    }
+
+    /**
+     * Запоминает добавление или обновление песни. На диск попадёт при ближайшем сбросе.
+     */
+    public synchronized void recordUpsert(Song song) {
+        String key = key(song.filePath());
+        pending.remove(key);
+        pending.put(key, song);
+        scheduleFlush();
+    }
+
+    public synchronized void recordRemove(Path path) {
+        String key = key(path);
+        pending.remove(key);
+        pending.put(key, null);
+        scheduleFlush();
+    }
+
+    /**
+     * Записывает накопленные изменения в журнал одним блоком.
+     */
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) return;
+        try (Timing ignored = Metrics.time("library.flush")) {
+            uninterruptibly(this::writePending);
+        }
+    }
+
+    /**
+     * Изменения уходят из pending только после того, как попали на диск — в журнал или в снимок.
+     */
+    private void writePending() {
+        List<LibraryJournal.Entry> entries = new ArrayList<>(pending.size());
+        for (Map.Entry<String, Song> e : pending.entrySet()) {
+            String key = e.getKey();
+            if (e.getValue() == null) {
+                // Удаление пишется всегда: после неудачной записи persistedPaths мог уже забыть путь
+                entries.add(new LibraryJournal.Entry(LibraryJournal.Op.REMOVE, key));
+            } else {
+                LibraryJournal.Op op = persistedPaths.contains(key) ? LibraryJournal.Op.UPDATE : LibraryJournal.Op.ADD;
+                entries.add(new LibraryJournal.Entry(op, key));
             }
+        }
+
+        try {
+            journal.append(entries);
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Ошибка записи журнала библиотеки, сохраняем полный снимок", e);
+            applyPending();
+            if (writeSnapshot()) pending.clear();
+            return;
+        }
+        applyPending();
+        pending.clear();
+
+        if (journal.size() > Math.max(MIN_COMPACT_RECORDS, persistedPaths.size())) {
+            compact();
+        }
+    }
+
+    private void applyPending() {
+        for (Map.Entry<String, Song> e : pending.entrySet()) {
+            String key = e.getKey();
+            Song song = e.getValue();
+            persistedPaths.remove(key);
+            if (song == null) {
+                metadataCache.remove(Paths.get(key));
+            } else {
+                persistedPaths.add(key);
+                cacheMetadata(song);
+            }
         }
     }
 
+    /**
+     * Сбрасывает изменения и сворачивает журнал. Вызывается при закрытии приложения.
+     */
+    public synchronized void close() {
+        flush();
+        if (journal.size() > 0 || metadataCache.isDirty()) compact();
+        flusher.shutdown();
+    }
+
+    /** Кэш метаданных; через него детектор дубликатов хранит отпечатки. */
+    MetadataCache metadataCache() {
+        return metadataCache;
+    }
+
     public List<Song> load() {
+        return load(BatchListener.NONE);
+    }
+
+    /**
+     * Загружает библиотеку, отдавая песни пачками по мере готовности.
+     */
+    public synchronized List<Song> load(BatchListener listener) {
+        flush();
+        try (Timing ignored = Metrics.time("library.load")) {
+            // Прерывание посреди чтения выглядело бы как битый снимок, и его бы отложили в сторону
+            return uninterruptibly(() -> loadSnapshot(listener));
+        }
+    }
+
+    private List<Song> loadSnapshot(BatchListener listener) {
         List<Song> songs = new ArrayList<>();
-        File file = new File(STORAGE_FILE);
-        if (!file.exists()) return songs;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Path p = Paths.get(line);
-                if (Files.exists(p)) {
-                    // Извлекаем метаданные напрямую, чтобы избежать зацикливания с LibraryManager
-                    songs.add(quickExtract(p));
+        // Путь → трек из снимка; null — путь из журнала, теги берутся из кэша метаданных
+        LinkedHashMap<String, LibrarySnapshot.Track> tracks = new LinkedHashMap<>();
+        boolean migrated = readSnapshot(tracks);
+        List<LibraryJournal.Entry> replayed;
+        try {
+            replayed = journal.read();
+        } catch (IOException e) {
+            logger.error("Ошибка чтения журнала библиотеки", e);
+            replayed = List.of();
+        }
+        if (tracks.isEmpty() && replayed.isEmpty()) return songs;
+        for (LibraryJournal.Entry entry : replayed) {
+            tracks.remove(entry.path());
+            if (entry.op() != LibraryJournal.Op.REMOVE) tracks.put(entry.path(), null);
+        }
+
+        int parsed = 0;
+        int processed = 0;
+        int fromSnapshot = 0;
+        List<Song> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        persistedPaths.clear();
+        for (Map.Entry<String, LibrarySnapshot.Track> e : tracks.entrySet()) {
+            processed++;
+            String line = e.getKey();
+            Path p = Paths.get(line);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(p, BasicFileAttributes.class);
+            } catch (IOException ex) {
+                continue; // Файла больше нет
+            }
+
+            // Теги перечитываем только у новых или изменившихся файлов
+            LibrarySnapshot.Track track = e.getValue();
+            Song song;
+            if (track != null && track.matches(attrs)) {
+                song = track.song();
+                fromSnapshot++;
+                // Снимок пишется из кэша метаданных, поэтому запись там должна быть
+                if (!metadataCache.contains(p)) metadataCache.put(song, attrs);
+            } else {
+                song = metadataCache.lookup(p, attrs);
+            }
+            if (song == null) {
+                // Извлекаем метаданные напрямую, чтобы избежать зацикливания с LibraryManager
+                song = quickExtract(p);
+                metadataCache.put(song, attrs);
+                parsed++;
+            }
+            songs.add(song);
+            persistedPaths.add(line);
+
+            batch.add(song);
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                listener.onBatch(List.copyOf(batch));
+                listener.onProgress(processed, tracks.size(), true);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) listener.onBatch(List.copyOf(batch));
+        listener.onProgress(processed, tracks.size(), true);
+        logger.info("Библиотека восстановлена: {} треков, из снимка {}, теги перечитаны у {}",
+                songs.size(), fromSnapshot, parsed);
+        Metrics.counter("library.metadataCacheHits").add(songs.size() - parsed);
+        Metrics.counter("library.metadataCacheMisses").add(parsed);
+
+        metadataCache.retainOnly(songs);
+        if (migrated || journal.size() > 0 || persistedPaths.size() != tracks.size()) {
+            compact();
+        } else {
+            metadataCache.save();
+        }
+        return songs;
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush == null || scheduledFlush.isDone()) {
+            scheduledFlush = flusher.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Пишет полный снимок во временный файл, атомарно подменяет им library.json и очищает журнал.
+     */
+    private void compact() {
+        try (Timing ignored = Metrics.time("library.save")) {
+            uninterruptibly(this::writeSnapshot);
+        }
+    }
+
+    /** Возвращает false, если снимок записать не удалось. */
+    private boolean writeSnapshot() {
+        boolean written = false;
+        try {
+            // Теги берутся из кэша метаданных по мере записи, отдельный список треков не строится
+            snapshot.write(persistedPaths.stream().map(this::snapshotTrack).iterator());
+            journal.truncate();
+            logger.info("Снимок библиотеки сохранён: {} треков", persistedPaths.size());
+            written = true;
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Ошибка сохранения снимка библиотеки", e);
+        }
+        metadataCache.save();
+        return written;
+    }
+
+    /**
+     * Снимок и журнал пишутся через FileChannel, а он при прерванном потоке закрывается
+     * с ClosedByInterruptException. Отмена фоновой задачи не должна стоить изменений библиотеки,
+     * поэтому флаг прерывания снимается на время записи и возвращается после.
+     */
+    private static void uninterruptibly(Runnable action) {
+        uninterruptibly(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <T> T uninterruptibly(Supplier<T> action) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            return action.get();
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private LibrarySnapshot.Track snapshotTrack(String path) {
+        LibrarySnapshot.Track track = metadataCache.track(path);
+        return track != null ? track : new LibrarySnapshot.Track(path, null, -1, -1);
+    }
+
+    /**
+     * Читает library.json, а если его нет — библиотеку прежней версии. Возвращает true, если прочитана
+     * старая библиотека: её нужно сразу переписать в новый формат. Нечитаемый снимок откладывается
+     * в library.json.unreadable, чтобы следующее сохранение его не затёрло.
+     */
+    private boolean readSnapshot(Map<String, LibrarySnapshot.Track> tracks) {
+        if (snapshot.exists()) {
+            try {
+                snapshot.read(track -> tracks.put(track.path(), track));
+                return false;
+            } catch (IOException e) {
+                tracks.clear();
+                logger.error("Ошибка чтения библиотеки", e);
+                setAsideUnreadable();
+            }
+        }
+        return readLegacySnapshot(tracks);
+    }
+
+    private void setAsideUnreadable() {
+        Path file = snapshot.file();
+        Path aside = file.resolveSibling(file.getFileName() + UNREADABLE_SUFFIX);
+        try {
+            Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            logger.warn("Нечитаемый снимок библиотеки сохранён как {}", aside);
+        } catch (IOException e) {
+            logger.error("Не удалось отложить нечитаемый снимок библиотеки", e);
+        }
+    }
+
+    /**
+     * Список путей library.txt и журнал из текущей папки, как их писали прежние версии.
+     * Сами файлы не трогаются: после переноса они просто больше не читаются.
+     */
+    private boolean readLegacySnapshot(Map<String, LibrarySnapshot.Track> tracks) {
+        if (!Files.exists(LEGACY_SNAPSHOT_FILE) && !Files.exists(LEGACY_JOURNAL_FILE)) return false;
+        try {
+            if (Files.exists(LEGACY_SNAPSHOT_FILE)) {
+                // Кодировка по умолчанию: так файл писал FileWriter
+                try (BufferedReader reader = new BufferedReader(new FileReader(LEGACY_SNAPSHOT_FILE.toFile()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) tracks.put(line, null);
+                    }
                 }
             }
+            for (LibraryJournal.Entry entry : new LibraryJournal(LEGACY_JOURNAL_FILE).read()) {
+                tracks.remove(entry.path());
+                if (entry.op() != LibraryJournal.Op.REMOVE) tracks.put(entry.path(), null);
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Ошибка чтения библиотеки прежней версии", e);
+            return false;
         }
-        return songs;
+        logger.info("Переносим библиотеку прежней версии из {}: {} треков",
+                LEGACY_SNAPSHOT_FILE.toAbsolutePath(), tracks.size());
+        return true;
+    }
+
+    private void cacheMetadata(Song song) {
+        try {
+            metadataCache.put(song, Files.readAttributes(song.filePath(), BasicFileAttributes.class));
+        } catch (IOException ignored) {
+            // Файл исчез между сканированием и сохранением — в кэш не попадёт
+        }
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().toString();
     }
 
     /**
@@ -60,11 +404,9 @@ public class LibraryRepository {
             String album = (tag != null && !tag.getFirst(FieldKey.ALBUM).isEmpty()) 
                     ? tag.getFirst(FieldKey.ALBUM) : "Unknown Album";
 
-            return new Song(path, title, artist, album, 
-                    String.format("%d:%02d", durationSeconds / 60, durationSeconds % 60), 
-                    durationSeconds);
+            return new Song(path, title, artist, album, durationSeconds);
         } catch (Exception e) {
-            return new Song(path, path.getFileName().toString(), "Unknown", "Unknown", "0:00", 0);
+            return new Song(path, path.getFileName().toString(), "Unknown", "Unknown", 0);
         }
     }
 }
\ No newline at end of file
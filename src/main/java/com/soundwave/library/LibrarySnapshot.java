@@ -0,0 +1,179 @@
+package com.soundwave.library;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.soundwave.core.Song;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Снимок библиотеки в JSON: пути вместе с тегами и атрибутами файла, по которым теги прочитаны.
+ * Пишется и читается потоково (Jackson streaming API): ни дерево документа, ни список всех треков
+ * в памяти не собираются. Файл читается через отображение в память, без копирования в кучу целиком.
+ * <pre>
+ * {"format":"soundwave-library","version":1,"tracks":[
+ *   {"path":"...","title":"...","artist":"...","album":"...","durationSeconds":187,"size":4518021,"modified":1700000000000},
+ *   {"path":"..."}  — теги неизвестны, их перечитают при загрузке
+ * ]}
+ * </pre>
+ * Незнакомые поля пропускаются, так что новые поля добавляются без смены версии;
+ * версия растёт, только если старый код прочитал бы файл неправильно.
+ */
+class LibrarySnapshot {
+    static final String FORMAT = "soundwave-library";
+    static final int VERSION = 1;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Трек в снимке. song == null — теги неизвестны; size и modified — атрибуты файла, к которым они относятся.
+     */
+    record Track(String path, Song song, long size, long modified) {
+        boolean matches(BasicFileAttributes attrs) {
+            return song != null && size == attrs.size() && modified == attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    private final Path file;
+
+    LibrarySnapshot(Path file) {
+        this.file = file;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Отдаёт треки по одному в порядке файла. IOException — файл повреждён или записан более новой версией.
+     */
+    void read(Consumer<Track> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try (InputStream in = new ByteBufferBackedInputStream(data);
+                 JsonParser parser = JSON.createParser(in)) {
+                readDocument(parser, consumer);
+            }
+        }
+    }
+
+    /**
+     * Атомарно заменяет снимок: пишет во временный файл, сбрасывает на диск и переименовывает.
+     */
+    void write(Iterator<Track> tracks) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16);
+             JsonGenerator generator = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("format", FORMAT);
+            generator.writeNumberField("version", VERSION);
+            generator.writeArrayFieldStart("tracks");
+            while (tracks.hasNext()) writeTrack(generator, tracks.next());
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeTrack(JsonGenerator generator, Track track) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("path", track.path());
+        Song song = track.song();
+        if (song != null) {
+            generator.writeStringField("title", song.title());
+            generator.writeStringField("artist", song.artist());
+            generator.writeStringField("album", song.album());
+            generator.writeNumberField("durationSeconds", song.durationSeconds());
+            generator.writeNumberField("size", track.size());
+            generator.writeNumberField("modified", track.modified());
+        }
+        generator.writeEndObject();
+    }
+
+    private void readDocument(JsonParser parser, Consumer<Track> consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) throw corrupt("ожидался объект");
+        String format = null;
+        int version = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "format" -> format = parser.getText();
+                case "version" -> version = parser.getIntValue();
+                case "tracks" -> {
+                    checkHeader(format, version);
+                    if (parser.currentToken() != JsonToken.START_ARRAY) throw corrupt("tracks — не массив");
+                    while (parser.nextToken() == JsonToken.START_OBJECT) consumer.accept(readTrack(parser));
+                    if (parser.currentToken() != JsonToken.END_ARRAY) throw corrupt("tracks оборван");
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) throw corrupt("файл оборван");
+        checkHeader(format, version);
+    }
+
+    private void checkHeader(String format, int version) throws IOException {
+        if (!FORMAT.equals(format)) throw corrupt("не снимок библиотеки");
+        if (version < 1) throw corrupt("нет версии");
+        if (version > VERSION) {
+            throw new IOException("Снимок библиотеки " + file + " записан более новой версией плеера (формат "
+                    + version + ", поддерживается " + VERSION + ")");
+        }
+    }
+
+    private Track readTrack(JsonParser parser) throws IOException {
+        String path = null;
+        String title = null;
+        String artist = null;
+        String album = null;
+        long duration = 0;
+        long size = -1;
+        long modified = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "path" -> path = parser.getText();
+                case "title" -> title = parser.getText();
+                case "artist" -> artist = parser.getText();
+                case "album" -> album = parser.getText();
+                case "durationSeconds" -> duration = parser.getLongValue();
+                case "size" -> size = parser.getLongValue();
+                case "modified" -> modified = parser.getLongValue();
+                default -> parser.skipChildren();
+            }
+        }
+        if (path == null) throw corrupt("трек без пути");
+        Song song = size >= 0 ? new Song(Paths.get(path), title, artist, album, duration) : null;
+        return new Track(path, song, size, modified);
+    }
+
+    private IOException corrupt(String reason) {
+        return new IOException("Снимок библиотеки повреждён (" + reason + "): " + file);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.soundwave.library;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Следит за папками библиотеки (включая вложенные) через WatchService.
+ * События копятся и отдаются пачкой после паузы, чтобы копирование альбома
+ * или синхронизация NAS не превращались в тысячи отдельных обновлений.
+ */
+public class LibraryWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LibraryWatcher.class);
+
+    private static final long QUIET_PERIOD_MS = 1000;
+    private static final long MAX_DELAY_MS = 5000;
+
+    /**
+     * Получатель изменений. Вызывается из потока наблюдателя.
+     */
+    public interface Listener {
+        /** changed — созданные или изменённые аудиофайлы, removed — удалённые файлы и папки. */
+        void onChanges(Set<Path> changed, Set<Path> removed);
+
+        /** События потеряны (переполнение очереди ОС) — папку нужно пересканировать целиком. */
+        void onOverflow(Path root);
+    }
+
+    private final Predicate<Path> filter;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    // Зарегистрированные папки: проверка «удалили папку?» — поиск в множестве, а не обход ключей
+    private final Set<Path> directories = new HashSet<>();
+    private final Set<Path> roots = new LinkedHashSet<>();
+
+    private final Set<Path> changed = new LinkedHashSet<>();
+    private final Set<Path> removed = new LinkedHashSet<>();
+    private long firstEventAt;
+    private long lastEventAt;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public LibraryWatcher(Predicate<Path> filter, Listener listener) throws IOException {
+        this.filter = filter;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::processEvents, "library-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Начинает следить за папкой и всеми её подпапками.
+     */
+    public void addRoot(Path root) {
+        Path normalized = root.toAbsolutePath().normalize();
+        synchronized (this) {
+            if (!roots.add(normalized)) return;
+        }
+        try {
+            registerTree(normalized, null);
+            logger.info("Наблюдение за папкой: {}", normalized);
+        } catch (IOException e) {
+            logger.error("Не удалось начать наблюдение за папкой {}", normalized, e);
+        }
+    }
+
+    public synchronized Set<Path> getRoots() {
+        return Set.copyOf(roots);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Поток наблюдателя всё равно остановлен
+        }
+    }
+
+    /**
+     * Регистрирует папку и все вложенные. Если found != null, найденные аудиофайлы
+     * добавляются туда — так ловим файлы, появившиеся до регистрации новой папки.
+     */
+    private void registerTree(Path dir, Set<Path> found) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = d.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                synchronized (LibraryWatcher.this) {
+                    keys.put(key, d);
+                    directories.add(d);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (found != null && attrs.isRegularFile() && filter.test(file)) found.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processEvents() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = hasPending()
+                        ? watchService.poll(QUIET_PERIOD_MS / 4, TimeUnit.MILLISECONDS)
+                        : watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key != null) {
+                handleKey(key);
+            }
+            if (hasPending() && isQuiet()) {
+                dispatch();
+            }
+        }
+    }
+
+    private void handleKey(WatchKey key) {
+        Path dir;
+        synchronized (this) {
+            dir = keys.get(key);
+        }
+        if (dir == null) {
+            key.cancel();
+            return;
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                Path root = rootOf(dir);
+                logger.warn("Переполнение очереди событий, папка будет пересканирована: {}", root);
+                listener.onOverflow(root);
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context());
+            touch();
+            if (event.kind() == ENTRY_DELETE) {
+                // Удаление посторонних файлов (обложки, .txt) библиотеку не касается
+                boolean directory = isWatchedDirectory(child);
+                if (directory) forgetTree(child);
+                if (filter.test(child) || directory) {
+                    changed.remove(child);
+                    removed.add(child);
+                }
+            } else if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                if (event.kind() == ENTRY_CREATE) {
+                    removed.remove(child);
+                    try {
+                        registerTree(child, changed);
+                    } catch (IOException e) {
+                        logger.warn("Не удалось зарегистрировать новую папку {}", child, e);
+                    }
+                }
+            } else if (filter.test(child)) {
+                removed.remove(child);
+                changed.add(child);
+            }
+        }
+
+        if (!key.reset()) {
+            synchronized (this) {
+                // Папку из directories не убираем: событие удаления у родителя может прийти
+                // позже, и по нему вложенные треки уйдут из библиотеки разом (forgetTree)
+                keys.remove(key);
+            }
+        }
+    }
+
+    private void dispatch() {
+        Set<Path> changedNow = new LinkedHashSet<>();
+        for (Path p : changed) {
+            // Файл могли удалить уже после события создания
+            if (Files.isRegularFile(p)) changedNow.add(p);
+            else removed.add(p);
+        }
+        Set<Path> removedNow = new LinkedHashSet<>(removed);
+        changed.clear();
+        removed.clear();
+
+        if (changedNow.isEmpty() && removedNow.isEmpty()) return;
+        logger.info("Изменения в папках библиотеки: {} новых/изменённых, {} удалённых",
+                changedNow.size(), removedNow.size());
+        try {
+            listener.onChanges(changedNow, removedNow);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка применения изменений из папок библиотеки", e);
+        }
+    }
+
+    private boolean hasPending() {
+        return !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    private void touch() {
+        long now = System.currentTimeMillis();
+        if (!hasPending()) firstEventAt = now;
+        lastEventAt = now;
+    }
+
+    private boolean isQuiet() {
+        long now = System.currentTimeMillis();
+        return now - lastEventAt >= QUIET_PERIOD_MS || now - firstEventAt >= MAX_DELAY_MS;
+    }
+
+    private synchronized boolean isWatchedDirectory(Path path) {
+        return directories.contains(path);
+    }
+
+    /**
+     * Забывает удалённую папку и все вложенные: их ключи уже недействительны,
+     * а папка с тем же именем, созданная позже, зарегистрируется заново.
+     */
+    private synchronized void forgetTree(Path dir) {
+        directories.removeIf(d -> d.startsWith(dir));
+        keys.entrySet().removeIf(e -> {
+            if (!e.getValue().startsWith(dir)) return false;
+            e.getKey().cancel();
+            return true;
+        });
+    }
+
+    private synchronized Path rootOf(Path dir) {
+        for (Path root : roots) {
+            if (dir.startsWith(root)) return root;
+        }
+        return dir;
+    }
+}
\ No newline at end of file
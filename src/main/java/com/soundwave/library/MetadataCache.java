@@ -0,0 +1,213 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Дисковый кэш метаданных треков.
+ * Хранит полную запись Song вместе с размером и временем изменения файла,
+ * чтобы при запуске не перечитывать теги у файлов, которые не менялись.
+ * Там же хранятся отпечатки для поиска дубликатов (с версии 2 формата; отпечатки версии 2
+ * хэшировали теги FLAC и APEv2 и при чтении отбрасываются).
+ */
+public class MetadataCache {
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+    private static final int MAGIC = 0x53574D43; // "SWMC"
+    private static final int VERSION = 3;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean dirty;
+    private boolean loaded;
+
+    /**
+     * Запись кэша: атрибуты файла на момент чтения тегов и сами теги.
+     */
+    private record Entry(long size, long modified, String title, String artist, String album, int durationSeconds,
+                         AudioFingerprint fingerprint) {
+        boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size() && modified == attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    public MetadataCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Читает кэш с диска. Вызывать не обязательно: кэш загрузится сам при первом обращении.
+     */
+    public synchronized void load() {
+        entries.clear();
+        dirty = false;
+        loaded = true;
+        if (!Files.exists(file)) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > VERSION) {
+                logger.warn("Кэш метаданных устарел или повреждён, будет пересобран: {}", file);
+                return;
+            }
+            // Артисты и альбомы повторяются тысячи раз — храним в памяти одну копию строки
+            Map<String, String> pool = new HashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                String title = in.readUTF();
+                String artist = pool.computeIfAbsent(in.readUTF(), s -> s);
+                String album = pool.computeIfAbsent(in.readUTF(), s -> s);
+                int duration = in.readInt();
+                AudioFingerprint fingerprint = version >= 2 && in.readBoolean() ? readFingerprint(in) : null;
+                if (version < 3) fingerprint = null; // Посчитаны ещё с тегами FLAC и APEv2
+                entries.put(path, new Entry(size, modified, title, artist, album, duration, fingerprint));
+            }
+            logger.info("Кэш метаданных загружен: {} записей", entries.size());
+        } catch (IOException e) {
+            logger.error("Ошибка чтения кэша метаданных, он будет пересобран", e);
+            entries.clear();
+        }
+    }
+
+    public synchronized void save() {
+        if (!loaded || !dirty) return;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.size());
+                out.writeLong(entry.modified());
+                out.writeUTF(entry.title());
+                out.writeUTF(entry.artist());
+                out.writeUTF(entry.album());
+                out.writeInt(entry.durationSeconds());
+                out.writeBoolean(entry.fingerprint() != null);
+                if (entry.fingerprint() != null) writeFingerprint(out, entry.fingerprint());
+            }
+        } catch (IOException e) {
+            logger.error("Ошибка сохранения кэша метаданных", e);
+            return;
+        }
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.error("Не удалось заменить файл кэша метаданных", e);
+        }
+    }
+
+    /**
+     * Возвращает закэшированную песню, если размер и время изменения файла совпадают,
+     * иначе null.
+     */
+    public synchronized Song lookup(Path path, BasicFileAttributes attrs) {
+        ensureLoaded();
+        Entry entry = entries.get(path.toString());
+        if (entry == null || !entry.matches(attrs)) return null;
+        return new Song(path, entry.title(), entry.artist(), entry.album(), entry.durationSeconds());
+    }
+
+    /**
+     * Запись для снимка библиотеки: теги вместе с атрибутами файла, без обращения к диску. null — записи нет.
+     */
+    synchronized LibrarySnapshot.Track track(String path) {
+        ensureLoaded();
+        Entry entry = entries.get(path);
+        if (entry == null) return null;
+        Song song = new Song(Paths.get(path), entry.title(), entry.artist(), entry.album(), entry.durationSeconds());
+        return new LibrarySnapshot.Track(path, song, entry.size(), entry.modified());
+    }
+
+    public synchronized boolean contains(Path path) {
+        ensureLoaded();
+        return entries.containsKey(path.toString());
+    }
+
+    public synchronized void put(Song song, BasicFileAttributes attrs) {
+        ensureLoaded();
+        String key = song.filePath().toString();
+        Entry old = entries.get(key);
+        // Файл не менялся — отпечаток по-прежнему верен
+        AudioFingerprint fingerprint = old != null && old.matches(attrs) ? old.fingerprint() : null;
+        entries.put(key, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(),
+                song.title(), song.artist(), song.album(), (int) song.durationSeconds(), fingerprint));
+        dirty = true;
+    }
+
+    /**
+     * Отпечаток файла, если он считался для этой версии файла (размер и время изменения совпадают).
+     */
+    public synchronized AudioFingerprint fingerprint(Path path, BasicFileAttributes attrs) {
+        ensureLoaded();
+        Entry entry = entries.get(path.toString());
+        return entry != null && entry.matches(attrs) ? entry.fingerprint() : null;
+    }
+
+    /**
+     * Запоминает отпечаток. Нужна запись о песне: отпечаток без метаданных не храним.
+     */
+    public synchronized void putFingerprint(Path path, BasicFileAttributes attrs, AudioFingerprint fingerprint) {
+        ensureLoaded();
+        Entry entry = entries.get(path.toString());
+        if (entry == null || !entry.matches(attrs)) return;
+        entries.put(path.toString(), new Entry(entry.size(), entry.modified(), entry.title(), entry.artist(),
+                entry.album(), entry.durationSeconds(), fingerprint));
+        dirty = true;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    public synchronized void remove(Path path) {
+        ensureLoaded();
+        if (entries.remove(path.toString()) != null) dirty = true;
+    }
+
+    /**
+     * Удаляет записи о файлах, которых больше нет в библиотеке.
+     */
+    public synchronized void retainOnly(Collection<Song> songs) {
+        ensureLoaded();
+        Set<String> keep = new HashSet<>(songs.size() * 2);
+        for (Song song : songs) keep.add(song.filePath().toString());
+        if (entries.keySet().retainAll(keep)) dirty = true;
+    }
+
+    private static AudioFingerprint readFingerprint(DataInput in) throws IOException {
+        byte[] hash = new byte[in.readUnsignedByte()];
+        in.readFully(hash);
+        long[] acoustic = new long[in.readUnsignedByte()];
+        for (int i = 0; i < acoustic.length; i++) acoustic[i] = in.readLong();
+        return new AudioFingerprint(hash, acoustic);
+    }
+
+    private static void writeFingerprint(DataOutput out, AudioFingerprint fingerprint) throws IOException {
+        out.writeByte(fingerprint.contentHash().length);
+        out.write(fingerprint.contentHash());
+        out.writeByte(fingerprint.acoustic().length);
+        for (long bits : fingerprint.acoustic()) out.writeLong(bits);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) load();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.soundwave.library;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Пути треков, каждый в одном экземпляре: папка — номер в словаре папок, имя файла — UTF-8 в общем массиве байт.
+ * Путь получает номер при первом добавлении и не теряет его до конца работы программы. По этому номеру
+ * {@link TrackStore} находит трек, а {@link TrackIds} — постоянный номер для плейлистов,
+ * поэтому ни тем, ни другим не нужны свои Path на каждый трек.
+ * Пути не удаляются: их столько, сколько разных файлов библиотека видела за сеанс. Потокобезопасно.
+ */
+final class PathTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Имя пути n — pool[nameStart[n] .. nameStart[n + 1])
+    private int[] dirs = new int[INITIAL_CAPACITY];
+    private int[] nameStart = new int[INITIAL_CAPACITY + 1];
+    private byte[] pool = new byte[INITIAL_CAPACITY * 16];
+    private int size;
+    private final ValueDictionary<Path> dirDictionary = new ValueDictionary<>();
+
+    // Путь → номер: открытая адресация, в ячейке номер + 1, 0 — пусто
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /** Номер пути; если пути ещё не было, выдаёт новый. */
+    synchronized int add(Path path) {
+        Path parent = parentOf(path);
+        byte[] name = nameOf(path);
+        int dir = dirDictionary.find(parent);
+        if (dir >= 0) {
+            int existing = lookup(dir, name);
+            if (existing >= 0) return existing;
+        } else {
+            dir = dirDictionary.id(parent);
+        }
+
+        if (size == dirs.length) {
+            int capacity = dirs.length + (dirs.length >> 1);
+            dirs = Arrays.copyOf(dirs, capacity);
+            nameStart = Arrays.copyOf(nameStart, capacity + 1);
+        }
+        int start = nameStart[size];
+        if (start + name.length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(start + name.length, pool.length + (pool.length >> 1)));
+        }
+        int id = size;
+        dirs[id] = dir;
+        System.arraycopy(name, 0, pool, start, name.length);
+        nameStart[id + 1] = start + name.length;
+        size++;
+
+        if (size * 2 > table.length) rehash(table.length * 2);
+        else insert(id, hash(dir, pool, start, name.length));
+        return id;
+    }
+
+    /** Номер пути или -1, если такого пути ещё не было. */
+    synchronized int find(Path path) {
+        int dir = dirDictionary.find(parentOf(path));
+        return dir < 0 ? -1 : lookup(dir, nameOf(path));
+    }
+
+    /** Путь по номеру; Path собирается заново при каждом вызове. */
+    synchronized Path path(int id) {
+        String name = new String(pool, nameStart[id], nameStart[id + 1] - nameStart[id], StandardCharsets.UTF_8);
+        return dirDictionary.get(dirs[id]).resolve(name);
+    }
+
+    /** Номер папки пути в словаре папок. */
+    synchronized int dir(int id) {
+        return dirs[id];
+    }
+
+    /** Номера папок, лежащих внутри dir, включая её саму. Каждая папка проверяется один раз. */
+    synchronized BitSet dirsUnder(Path dir) {
+        BitSet inside = new BitSet();
+        for (int id = 0; id < dirDictionary.size(); id++) {
+            if (dirDictionary.get(id).startsWith(dir)) inside.set(id);
+        }
+        return inside;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /** Массивы, имена и словарь папок (без самих Path папок). */
+    synchronized long footprintBytes() {
+        return 4L * (dirs.length + nameStart.length + table.length) + pool.length + dirDictionary.footprintBytes();
+    }
+
+    private int lookup(int dir, byte[] name) {
+        int mask = table.length - 1;
+        for (int slot = hash(dir, name, 0, name.length) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (dirs[id] == dir && nameEquals(id, name)) return id;
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int id, byte[] name) {
+        int start = nameStart[id];
+        return nameStart[id + 1] - start == name.length
+                && Arrays.equals(pool, start, start + name.length, name, 0, name.length);
+    }
+
+    private void insert(int id, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = id + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(id, hash(dirs[id], pool, nameStart[id], nameStart[id + 1] - nameStart[id]));
+        }
+    }
+
+    private static Path parentOf(Path path) {
+        Path parent = path.getParent();
+        return parent != null ? parent : Paths.get("");
+    }
+
+    private static byte[] nameOf(Path path) {
+        Path name = path.getFileName();
+        return (name != null ? name.toString() : "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(int dir, byte[] bytes, int from, int length) {
+        int h = dir * 0x9E3779B9;
+        for (int i = from; i < from + length; i++) h = 31 * h + bytes[i];
+        return h ^ (h >>> 16);
+    }
+}
\ No newline at end of file
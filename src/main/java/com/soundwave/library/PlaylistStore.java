@@ -0,0 +1,205 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Playlist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище плейлистов в папке playlists/: N.pl — заголовок с названием
+ * и дальше номера треков (TrackIds) по 4 байта.
+ * Добавление песен дописывает только свои номера в один файл, удаление переписывает один файл.
+ * При запуске читаются только заголовки, сами списки — при первом обращении.
+ * Пока таблица номеров закрыта ({@link TrackIds#isAvailable()}), плейлисты не пишутся: их номера
+ * не с чем сверить. Не потокобезопасно: LibraryManager вызывает всё под своей блокировкой.
+ */
+class PlaylistStore {
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistStore.class);
+    private static final int PLAYLIST_MAGIC = 0x5357504C; // "SWPL"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".pl";
+
+    private final Path dir;
+    private final TrackIds trackIds;
+    private final Map<Playlist, PlaylistFile> files = new IdentityHashMap<>();
+    private int nextFileNumber;
+
+    /** Файл плейлиста и длина его заголовка: дальше идут только номера треков. */
+    private record PlaylistFile(Path file, int headerSize) {}
+
+    PlaylistStore(Path dir, TrackIds trackIds) {
+        this.dir = dir;
+        this.trackIds = trackIds;
+    }
+
+    /**
+     * Читает заголовки плейлистов. Если хранилище пустое, а рядом лежит старый
+     * playlists.dat (Java-сериализация), переносит его и переименовывает в .bak.
+     */
+    List<Playlist> load(Path legacyFile) throws IOException {
+        Files.createDirectories(dir);
+        List<Playlist> playlists = new ArrayList<>();
+        List<Path> found;
+        try (Stream<Path> stream = Files.list(dir)) {
+            found = stream.filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparingInt(PlaylistStore::fileNumber))
+                    .toList();
+        }
+
+        // Номер для новых плейлистов — после всех файлов, в том числе тех, что не прочитаются
+        for (Path file : found) nextFileNumber = Math.max(nextFileNumber, fileNumber(file) + 1);
+
+        for (Path file : found) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != PLAYLIST_MAGIC || in.readInt() != VERSION) {
+                    logger.warn("Неизвестный формат плейлиста, пропущен: {}", file);
+                    continue;
+                }
+                String name = in.readUTF();
+                int headerSize = 2 * Integer.BYTES + 2 + utfLength(name);
+                PlaylistFile pf = new PlaylistFile(file, headerSize);
+                int count = (int) ((Files.size(file) - headerSize) / Integer.BYTES);
+                Playlist playlist = new Playlist(name, count, () -> readEntries(pf));
+                files.put(playlist, pf);
+                playlists.add(playlist);
+            } catch (IOException e) {
+                // Обрезанный или испорченный файл не должен прятать остальные плейлисты
+                logger.error("Не удалось прочитать плейлист, пропущен: {}", file, e);
+            }
+        }
+
+        if (found.isEmpty() && Files.exists(legacyFile)) {
+            playlists = migrate(legacyFile);
+        }
+        return playlists;
+    }
+
+    void create(Playlist playlist) throws IOException {
+        checkWritable();
+        PlaylistFile pf = writeHeader(dir.resolve(nextFileNumber++ + EXTENSION), playlist.getName(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        files.put(playlist, pf);
+        appendTo(pf, playlist.getTrackIds());
+    }
+
+    void delete(Playlist playlist) throws IOException {
+        PlaylistFile pf = files.remove(playlist);
+        if (pf != null) Files.deleteIfExists(pf.file());
+    }
+
+    /**
+     * Дописывает номера в конец плейлиста. Номера должны быть уже сохранены в TrackIds.
+     */
+    void append(Playlist playlist, int[] added) throws IOException {
+        checkWritable();
+        PlaylistFile pf = files.get(playlist);
+        if (pf != null) appendTo(pf, added);
+    }
+
+    private void appendTo(PlaylistFile pf, int[] ids) throws IOException {
+        if (ids.length == 0) return;
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * Integer.BYTES);
+        for (int id : ids) buffer.putInt(id);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(pf.file(), StandardOpenOption.WRITE)) {
+            // Обрезаем недописанный хвост, если прошлый сбой оставил его
+            long size = channel.size();
+            long end = size - (size - pf.headerSize()) % Integer.BYTES;
+            if (end < size) channel.truncate(end);
+            channel.position(end);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Переписывает плейлист целиком (после удаления песен): временный файл и атомарная замена.
+     */
+    void rewrite(Playlist playlist) throws IOException {
+        checkWritable();
+        PlaylistFile pf = files.get(playlist);
+        if (pf == null) return;
+        Path tmp = pf.file().resolveSibling(pf.file().getFileName() + ".tmp");
+        appendTo(writeHeader(tmp, playlist.getName(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), playlist.getTrackIds());
+        Files.move(tmp, pf.file(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void checkWritable() throws IOException {
+        if (!trackIds.isAvailable()) throw new IOException("Таблица номеров треков недоступна, плейлисты только для чтения");
+    }
+
+    private List<Playlist> migrate(Path legacyFile) throws IOException {
+        checkWritable();
+        List<Playlist> legacy;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacyFile)))) {
+            @SuppressWarnings("unchecked")
+            List<Playlist> read = (List<Playlist>) ois.readObject();
+            legacy = read;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Не удалось прочитать старый файл плейлистов", e);
+        }
+        List<Playlist> migrated = new ArrayList<>(legacy.size());
+        for (Playlist old : legacy) {
+            Playlist playlist = new Playlist(old.getName());
+            if (old.getLegacySongPaths() != null) {
+                for (String path : old.getLegacySongPaths()) playlist.add(trackIds.idOf(Paths.get(path)));
+            }
+            migrated.add(playlist);
+        }
+        trackIds.flush();
+        for (Playlist playlist : migrated) create(playlist);
+        Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".bak"),
+                StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Плейлисты перенесены в новый формат: {}", migrated.size());
+        return migrated;
+    }
+
+    private int[] readEntries(PlaylistFile pf) {
+        try {
+            byte[] data = Files.readAllBytes(pf.file());
+            ByteBuffer buffer = ByteBuffer.wrap(data, pf.headerSize(), data.length - pf.headerSize());
+            int[] ids = new int[buffer.remaining() / Integer.BYTES];
+            buffer.asIntBuffer().get(ids);
+            return ids;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            logger.error("Ошибка чтения плейлиста {}", pf.file(), e);
+            return new int[0];
+        }
+    }
+
+    /** Пишет заголовок. Новый плейлист открывается с CREATE_NEW, чтобы не затереть чужой файл с тем же номером. */
+    private static PlaylistFile writeHeader(Path file, String name, OpenOption... options) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file, options))) {
+            out.writeInt(PLAYLIST_MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(name);
+            return new PlaylistFile(file, out.size());
+        }
+    }
+
+    /** Длина строки в модифицированном UTF-8, как её пишет writeUTF. */
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+
+    private static int fileNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Многоступенчатое сканирование папки:
+ * обход дерева → фильтр → параллельный разбор тегов → слияние пачками в исходном порядке.
+ * Очереди между ступенями ограничены, поэтому обход не убегает вперёд разбора тегов, а окно
+ * незавершённых файлов — поэтому один медленный файл не копит за собой результаты всей библиотеки.
+ */
+public class ScanPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ScanPipeline.class);
+
+    public static final int DEFAULT_WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    // Насколько файлов обход может уйти вперёд от последнего слитого по порядку
+    private static final int WINDOW_PER_QUEUE_SLOT = 4;
+
+    private record Task(int seq, Path path) {}
+    private record Result(int seq, Song song) {}
+
+    private static final Task POISON = new Task(-1, null);
+
+    private final Function<Path, Song> extractor;
+    private final Predicate<Path> filter;
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    private volatile boolean cancelled;
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    public ScanPipeline(Function<Path, Song> extractor, Predicate<Path> filter, int workers) {
+        this(extractor, filter, workers, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public ScanPipeline(Function<Path, Song> extractor, Predicate<Path> filter,
+                        int workers, int queueCapacity, int batchSize) {
+        if (workers < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Параметры сканирования должны быть положительными");
+        }
+        this.extractor = extractor;
+        this.filter = filter;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Останавливает сканирование. {@link #run} вернёт то, что успело слиться.
+     */
+    public void cancel() {
+        cancelled = true;
+        threads.forEach(Thread::interrupt);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Сканирует дерево и возвращает песни в том же порядке, в каком их отдаёт Files.walk.
+     * Колбэки listener вызываются из текущего потока.
+     */
+    public List<Song> run(Path root, BatchListener listener) throws IOException {
+        BlockingQueue<Task> tasks = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Result> results = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger discovered = new AtomicInteger();
+        AtomicInteger total = new AtomicInteger(-1); // -1 пока обход не закончен
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Semaphore window = new Semaphore(queueCapacity * WINDOW_PER_QUEUE_SLOT);
+
+        Thread walker = new Thread(() -> walk(root, tasks, window, discovered, total, failure), "scan-walker");
+        walker.setDaemon(true);
+        threads.add(walker);
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(() -> parse(tasks, results, failure), "scan-worker-" + i);
+            worker.setDaemon(true);
+            threads.add(worker);
+        }
+        threads.forEach(Thread::start);
+
+        List<Song> merged = new ArrayList<>();
+        try {
+            merge(results, merged, listener, window, discovered, total, failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } finally {
+            if (cancelled || failure.get() != null) threads.forEach(Thread::interrupt);
+            threads.clear();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException io) throw io;
+        if (error instanceof RuntimeException re) throw re;
+        if (error != null) throw new IOException(error);
+        if (cancelled) logger.info("Сканирование {} отменено, обработано {} файлов", root, merged.size());
+        return merged;
+    }
+
+    private void walk(Path root, BlockingQueue<Task> tasks, Semaphore window, AtomicInteger discovered,
+                      AtomicInteger total, AtomicReference<Throwable> failure) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            Iterator<Path> it = paths.filter(Files::isRegularFile).filter(filter).iterator();
+            while (it.hasNext() && !cancelled) {
+                Path path = it.next();
+                window.acquire();
+                tasks.put(new Task(discovered.getAndIncrement(), path));
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e instanceof UncheckedIOException u ? u.getCause() : e);
+        } finally {
+            total.set(discovered.get());
+        }
+
+        try {
+            for (int i = 0; i < workers; i++) tasks.put(POISON);
+        } catch (InterruptedException ignored) {
+            // Отмена: рабочие потоки тоже прерваны
+        }
+    }
+
+    private void parse(BlockingQueue<Task> tasks, BlockingQueue<Result> results, AtomicReference<Throwable> failure) {
+        try {
+            while (!cancelled) {
+                Task task = tasks.take();
+                if (task == POISON) return;
+                results.put(new Result(task.seq(), extractor.apply(task.path())));
+            }
+        } catch (InterruptedException ignored) {
+            // Отмена сканирования
+        } catch (Throwable e) {
+            // И Error тоже (переполнение стека на битом заголовке и т.п.): иначе номер файла
+            // так и не придёт, и слияние будет ждать его вечно
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void merge(BlockingQueue<Result> results, List<Song> merged, BatchListener listener,
+                       Semaphore window, AtomicInteger discovered, AtomicInteger total,
+                       AtomicReference<Throwable> failure) throws InterruptedException {
+        // Потоки разбора завершаются вразнобой — придерживаем результаты до своей очереди
+        Map<Integer, Song> pending = new HashMap<>();
+        List<Song> batch = new ArrayList<>(batchSize);
+        int next = 0;
+
+        while (!cancelled && failure.get() == null) {
+            int expected = total.get();
+            if (expected >= 0 && next >= expected) break;
+
+            Result result = results.poll(100, TimeUnit.MILLISECONDS);
+            if (result == null) continue;
+            pending.put(result.seq(), result.song());
+
+            Song song;
+            while ((song = pending.remove(next)) != null) {
+                merged.add(song);
+                batch.add(song);
+                next++;
+                window.release();
+                if (batch.size() == batchSize) {
+                    listener.onBatch(List.copyOf(batch));
+                    batch.clear();
+                    listener.onProgress(next, discovered.get(), total.get() >= 0);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) listener.onBatch(List.copyOf(batch));
+        listener.onProgress(next, discovered.get(), total.get() >= 0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Полнотекстовый индекс по названию, исполнителю и альбому.
+ * Слова нормализуются (нижний регистр, без диакритики, ё → е), запрос ищется
+ * как набор префиксов слов: "beat lov" найдёт "The Beatles — All You Need Is Love".
+ * Обновляется по событиям LibraryIndex, запросы можно выполнять из любого потока.
+ * Найденное возвращается в порядке библиотеки.
+ */
+public class SearchIndex implements LibraryIndex.Listener {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Для каждого слова — отсортированные ключи треков. Сами песни достаются из библиотеки
+    // только для найденного, поэтому индекс не держит ни Song, ни Path на трек
+    private final LibraryIndex library;
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+
+    public SearchIndex(LibraryIndex library) {
+        this.library = library;
+    }
+
+    @Override
+    public synchronized void onAdded(int key, Song song) {
+        for (String token : tokens(song)) {
+            postings.computeIfAbsent(token, t -> new IntList()).insert(key);
+        }
+    }
+
+    @Override
+    public synchronized void onRemoved(int key, Song song) {
+        for (String token : tokens(song)) {
+            IntList keys = postings.get(token);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.size == 0) postings.remove(token);
+        }
+    }
+
+    @Override
+    public synchronized void onCleared() {
+        postings.clear();
+    }
+
+    /**
+     * Песни, у которых каждое слово запроса является началом какого-нибудь слова
+     * в названии, исполнителе или альбоме.
+     */
+    public synchronized List<Song> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet hits = new BitSet();
+            String upper = term + Character.MAX_VALUE;
+            for (IntList keys : postings.subMap(term, true, upper, false).values()) {
+                for (int i = 0; i < keys.size; i++) hits.set(keys.values[i]);
+            }
+            if (result == null) result = hits;
+            else result.and(hits);
+            if (result.isEmpty()) return List.of();
+        }
+        int[] keys = result.stream().toArray();
+        return library.songs(keys, keys.length);
+    }
+
+    /**
+     * Приводит строку к виду для поиска: нижний регистр, без диакритики.
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static Set<String> tokens(Song song) {
+        Set<String> tokens = new HashSet<>();
+        tokens.addAll(tokenize(song.title()));
+        tokens.addAll(tokenize(song.artist()));
+        tokens.addAll(tokenize(song.album()));
+        return tokens;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Постоянные целые номера треков. Номер выдаётся пути один раз и больше не меняется,
+ * поэтому плейлисты хранят номера, а не строки путей.
+ * Файл tracks.bin — заголовок и пути подряд (номер = позиция), новые пути только дописываются.
+ * В памяти пути не хранятся: номер связан с номером пути в {@link PathTable}, общей с хранилищем треков.
+ * Нечитаемый файл откладывается в tracks.bin.unreadable, и таблица закрывается: новых номеров
+ * она не выдаёт, иначе они совпали бы со старыми номерами в плейлистах и указали бы на чужие треки.
+ */
+public class TrackIds implements LibraryIndex.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(TrackIds.class);
+    private static final int MAGIC = 0x53575054; // "SWPT"
+    private static final int VERSION = 1;
+    private static final String UNREADABLE_SUFFIX = ".unreadable";
+
+    private final Path file;
+    private final PathTable paths;
+    // Номер трека → номер пути; номер пути → номер трека + 1 (0 — номера нет)
+    private int[] pathOfId = new int[64];
+    private int[] idOfPath = new int[64];
+    private int count;
+    private int persisted; // Сколько номеров уже на диске
+    private boolean available;
+
+    public TrackIds(Path file) {
+        this(file, new PathTable());
+    }
+
+    TrackIds(Path file, PathTable paths) {
+        this.file = file;
+        this.paths = paths;
+    }
+
+    /**
+     * Читает таблицу. Недописанная последняя запись (сбой во время записи) отрезается,
+     * любая другая ошибка закрывает таблицу до тех пор, пока отложенный файл не уберут.
+     */
+    public synchronized void load() {
+        clear();
+        persisted = 0;
+        available = false;
+        Path aside = file.resolveSibling(file.getFileName() + UNREADABLE_SUFFIX);
+        try {
+            if (!Files.exists(file)) {
+                if (Files.exists(aside)) {
+                    logger.error("Таблица номеров треков отложена как нечитаемая, плейлисты только для чтения. "
+                            + "Восстановите {} или удалите его, чтобы начать нумерацию заново", aside);
+                    return;
+                }
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                }
+                available = true;
+                return;
+            }
+            byte[] data = Files.readAllBytes(file);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (data.length < 2 * Integer.BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Неизвестный формат таблицы номеров треков: " + file);
+            }
+            long good = data.length - in.available();
+            try {
+                while (in.available() > 0) {
+                    register(Paths.get(in.readUTF()));
+                    good = data.length - in.available();
+                }
+            } catch (EOFException e) {
+                logger.warn("Таблица номеров треков обрезана после сбоя: {}", file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(good);
+                }
+            }
+            persisted = count;
+            available = true;
+            logger.info("Номера треков загружены: {}", persisted);
+        } catch (IOException | InvalidPathException e) {
+            logger.error("Ошибка чтения таблицы номеров треков, плейлисты только для чтения", e);
+            clear();
+            setAside(aside);
+        }
+    }
+
+    /**
+     * false — таблица не прочитана: номера не выдаются, плейлисты менять нельзя.
+     */
+    public synchronized boolean isAvailable() {
+        return available;
+    }
+
+    /** Номер трека; если пути ещё не было, выдаёт новый. -1, если таблица закрыта. */
+    public synchronized int idOf(Path path) {
+        if (!available) return -1;
+        int id = find(path);
+        return id >= 0 ? id : register(path);
+    }
+
+    /** Номер трека или -1, если путь номера не получал. */
+    public synchronized int find(Path path) {
+        int pathId = paths.find(path);
+        return pathId >= 0 && pathId < idOfPath.length ? idOfPath[pathId] - 1 : -1;
+    }
+
+    /** Путь по номеру или null для неизвестного номера. */
+    public synchronized Path path(int id) {
+        return id >= 0 && id < count ? paths.path(pathOfId[id]) : null;
+    }
+
+    /**
+     * Дописывает на диск новые номера. Вызывать до того, как номера попадут в другие файлы.
+     */
+    public synchronized void flush() {
+        if (!available || persisted == count) return;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (int i = persisted; i < count; i++) out.writeUTF(paths.path(pathOfId[i]).toString());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            }
+            persisted = count;
+        } catch (IOException e) {
+            logger.error("Ошибка записи номеров треков", e);
+        }
+    }
+
+    @Override
+    public void onAdded(int key, Song song) {
+        idOf(song.filePath());
+    }
+
+    @Override
+    public void onRemoved(int key, Song song) {
+        // Номер остаётся за путём: трек может вернуться, а плейлисты на него ссылаются
+    }
+
+    @Override
+    public void onCleared() {
+    }
+
+    private void setAside(Path aside) {
+        try {
+            if (Files.exists(file)) {
+                Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+                logger.warn("Нечитаемая таблица номеров треков сохранена как {}", aside);
+            }
+        } catch (IOException e) {
+            logger.error("Не удалось отложить нечитаемую таблицу номеров треков", e);
+        }
+    }
+
+    private int register(Path path) {
+        int pathId = paths.add(path);
+        int id = count++;
+        if (id == pathOfId.length) pathOfId = Arrays.copyOf(pathOfId, id + (id >> 1));
+        pathOfId[id] = pathId;
+        if (pathId >= idOfPath.length) {
+            idOfPath = Arrays.copyOf(idOfPath, Math.max(pathId + 1, idOfPath.length + (idOfPath.length >> 1)));
+        }
+        idOfPath[pathId] = id + 1;
+        return id;
+    }
+
+    private void clear() {
+        Arrays.fill(idOfPath, 0);
+        count = 0;
+    }
+}
\ No newline at end of file
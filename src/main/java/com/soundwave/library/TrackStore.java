@@ -0,0 +1,257 @@
+package com.soundwave.library;
+
+import com.soundwave.core.Song;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Компактное хранилище треков по колонкам. Вместо объекта Song с собственными Path и строками
+ * на трек приходится несколько int: путь — номер в {@link PathTable}, исполнитель и альбом — номера
+ * в общих словарях, название — UTF-8 в общем массиве байт. Песни отдаются представлениями,
+ * которые собираются при обращении.
+ * Ключ трека — номер его пути: он не меняется, пока трек в хранилище, в том числе при замене новой версией,
+ * поэтому поиск и дерево исполнителей хранят ключи, а не песни. Накладные расходы вместе с таблицей путей —
+ * около 80 байт на трек сверх самого текста (HeapFootprint, 250 тыс. треков).
+ * Порядок — порядок добавления; повторное добавление того же пути переносит трек в конец.
+ * Методы синхронизированы: меняет хранилище {@link LibraryIndex}, а поиск и интерфейс читают его из своих потоков.
+ */
+public class TrackStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MIN_COMPACT_ROWS = 1024;
+
+    private final PathTable paths;
+
+    // Колонки, по элементу на строку. Название строки r — titles[titleStart[r] .. titleStart[r + 1])
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] artists = new int[INITIAL_CAPACITY];
+    private int[] albums = new int[INITIAL_CAPACITY];
+    private int[] durations = new int[INITIAL_CAPACITY];
+    private int[] titleStart = new int[INITIAL_CAPACITY + 1];
+    private byte[] titles = new byte[INITIAL_CAPACITY * 16];
+    private final BitSet removed = new BitSet();
+    private int rows;
+    private int live;
+
+    private final ValueDictionary<String> artistDictionary = new ValueDictionary<>();
+    private final ValueDictionary<String> albumDictionary = new ValueDictionary<>();
+
+    // Ключ → строка + 1, 0 — трека с таким путём нет
+    private int[] rowOfKey = new int[INITIAL_CAPACITY];
+
+    public TrackStore() {
+        this(new PathTable());
+    }
+
+    /** Хранилище над общей таблицей путей: та же таблица нумерует пути для {@link TrackIds}. */
+    TrackStore(PathTable paths) {
+        this.paths = paths;
+    }
+
+    public synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Добавляет песню или заменяет существующую с тем же путём. Возвращает ключ трека.
+     */
+    public synchronized int upsert(Song song) {
+        int key = paths.add(song.filePath());
+        int old = rowOf(key);
+        if (old >= 0) markRemoved(old);
+        append(key, song);
+        compactIfSparse();
+        return key;
+    }
+
+    public synchronized Song remove(Path path) {
+        int key = key(path);
+        return key < 0 ? null : remove(key);
+    }
+
+    /** Удаляет трек по ключу. Возвращает удалённую песню или null. */
+    public synchronized Song remove(int key) {
+        int row = rowOf(key);
+        if (row < 0) return null;
+        Song song = view(row);
+        markRemoved(row);
+        compactIfSparse();
+        return song;
+    }
+
+    public synchronized Song get(Path path) {
+        int key = key(path);
+        return key < 0 ? null : view(rowOf(key));
+    }
+
+    public synchronized boolean contains(Path path) {
+        return key(path) >= 0;
+    }
+
+    /** Ключ трека с этим путём или -1, если такого трека нет. */
+    public synchronized int key(Path path) {
+        int key = paths.find(path);
+        return key >= 0 && rowOf(key) >= 0 ? key : -1;
+    }
+
+    /** Песня по ключу или null, если трек уже удалён. */
+    public synchronized Song song(int key) {
+        int row = rowOf(key);
+        return row < 0 ? null : view(row);
+    }
+
+    /**
+     * Ключи треков в папке и всех вложенных. Каждая папка проверяется один раз, а не каждый трек.
+     */
+    public synchronized int[] keysUnder(Path dir) {
+        BitSet inside = paths.dirsUnder(dir);
+        if (inside.isEmpty()) return new int[0];
+        IntList result = new IntList();
+        forEachLive(row -> {
+            if (inside.get(paths.dir(keys[row]))) result.add(keys[row]);
+        });
+        return result.toArray();
+    }
+
+    public synchronized void clear() {
+        forEachLive(row -> rowOfKey[keys[row]] = 0);
+        removed.clear();
+        rows = 0;
+        live = 0;
+        titleStart[0] = 0;
+        artistDictionary.clear();
+        albumDictionary.clear();
+    }
+
+    /** Ключи всех треков в порядке добавления. */
+    public synchronized int[] keys() {
+        int[] result = new int[live];
+        int[] next = {0};
+        forEachLive(row -> result[next[0]++] = keys[row]);
+        return result;
+    }
+
+    /**
+     * Снимок песен в порядке добавления. Песни собираются заново при каждом вызове.
+     */
+    public synchronized List<Song> songs() {
+        List<Song> songs = new ArrayList<>(live);
+        forEachLive(row -> songs.add(view(row)));
+        return songs;
+    }
+
+    /**
+     * Песни по первым count ключам, в порядке добавления. Удалённые треки пропускаются.
+     */
+    public synchronized List<Song> songs(int[] keys, int count) {
+        int[] found = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rowOf(keys[i]);
+            if (row >= 0) found[n++] = row;
+        }
+        Arrays.sort(found, 0, n);
+        List<Song> songs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) songs.add(view(found[i]));
+        return songs;
+    }
+
+    /**
+     * Сколько байт занимают колонки, названия, словари (без самих строк словарей) и таблица путей.
+     */
+    public synchronized long footprintBytes() {
+        long columns = 4L * (keys.length + artists.length + albums.length + durations.length
+                + titleStart.length + rowOfKey.length);
+        return columns + titles.length + removed.size() / 8 + paths.footprintBytes()
+                + artistDictionary.footprintBytes() + albumDictionary.footprintBytes();
+    }
+
+    private void append(int key, Song song) {
+        byte[] title = song.title().getBytes(StandardCharsets.UTF_8);
+        ensureRows(rows + 1);
+        int start = titleStart[rows];
+        if (start + title.length > titles.length) {
+            titles = Arrays.copyOf(titles, Math.max(start + title.length, titles.length + (titles.length >> 1)));
+        }
+        int row = rows;
+        keys[row] = key;
+        artists[row] = artistDictionary.id(song.artist());
+        albums[row] = albumDictionary.id(song.album());
+        durations[row] = (int) Math.min(Integer.MAX_VALUE, song.durationSeconds());
+        System.arraycopy(title, 0, titles, start, title.length);
+        titleStart[row + 1] = start + title.length;
+        rows++;
+        live++;
+
+        if (key >= rowOfKey.length) {
+            rowOfKey = Arrays.copyOf(rowOfKey, Math.max(key + 1, rowOfKey.length + (rowOfKey.length >> 1)));
+        }
+        rowOfKey[key] = row + 1;
+    }
+
+    private Song view(int row) {
+        String title = new String(titles, titleStart[row], titleStart[row + 1] - titleStart[row],
+                StandardCharsets.UTF_8);
+        return new Song(paths.path(keys[row]), title,
+                artistDictionary.get(artists[row]), albumDictionary.get(albums[row]), durations[row]);
+    }
+
+    private int rowOf(int key) {
+        return key >= 0 && key < rowOfKey.length ? rowOfKey[key] - 1 : -1;
+    }
+
+    private void markRemoved(int row) {
+        removed.set(row);
+        rowOfKey[keys[row]] = 0;
+        live--;
+    }
+
+    private void compactIfSparse() {
+        if (rows - live > Math.max(MIN_COMPACT_ROWS, live)) compact();
+    }
+
+    /**
+     * Выбрасывает удалённые строки и их названия, сдвигая живые к началу. Порядок и ключи сохраняются.
+     */
+    private void compact() {
+        int target = 0;
+        int text = 0;
+        for (int row = removed.nextClearBit(0); row < rows; row = removed.nextClearBit(row + 1)) {
+            int start = titleStart[row];
+            int length = titleStart[row + 1] - start;
+            keys[target] = keys[row];
+            artists[target] = artists[row];
+            albums[target] = albums[row];
+            durations[target] = durations[row];
+            System.arraycopy(titles, start, titles, text, length);
+            titleStart[target] = text;
+            rowOfKey[keys[target]] = target + 1;
+            text += length;
+            target++;
+        }
+        titleStart[target] = text;
+        rows = target;
+        removed.clear();
+    }
+
+    private void forEachLive(IntConsumer action) {
+        for (int row = removed.nextClearBit(0); row < rows; row = removed.nextClearBit(row + 1)) {
+            action.accept(row);
+        }
+    }
+
+    private void ensureRows(int needed) {
+        if (needed <= keys.length) return;
+        int capacity = Math.max(needed, keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, capacity);
+        artists = Arrays.copyOf(artists, capacity);
+        albums = Arrays.copyOf(albums, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        titleStart = Arrays.copyOf(titleStart, capacity + 1);
+    }
+}
\ No newline at end of file
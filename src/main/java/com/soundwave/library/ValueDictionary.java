@@ -0,0 +1,47 @@
+package com.soundwave.library;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Словарь значений: каждое различное значение хранится один раз, записи ссылаются на него по номеру.
+ * Значения не удаляются до {@link #clear()}: исполнителей и папок на порядки меньше, чем треков.
+ * Не потокобезопасно, блокирует владелец.
+ */
+final class ValueDictionary<T> {
+    private final List<T> values = new ArrayList<>();
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    int id(T value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        values.add(value);
+        ids.put(value, values.size() - 1);
+        return values.size() - 1;
+    }
+
+    int find(T value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    T get(int id) {
+        return values.get(id);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    void clear() {
+        values.clear();
+        ids.clear();
+    }
+
+    /** Ссылка в списке и узел HashMap с Integer; сами значения не считаются. */
+    long footprintBytes() {
+        return values.size() * (4L + 48L);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.soundwave.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчик событий. LongAdder, чтобы параллельные потоки сканирования не дрались за одну ячейку.
+ */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
\ No newline at end of file
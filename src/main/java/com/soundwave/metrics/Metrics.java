@@ -0,0 +1,130 @@
+package com.soundwave.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реестр метрик приложения: счётчики и гистограммы длительностей по именам вида "library.tagParse".
+ * Запись дешёвая и потокобезопасная, её можно звать из горячих путей.
+ * {@link #start()} публикует метрики в JMX и раз в минуту пишет в лог то, что изменилось
+ * (интервал — -Dsoundwave.metrics.logSeconds, 0 отключает).
+ */
+public final class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private static final String OBJECT_NAME = "com.soundwave:type=Metrics";
+    private static final long DEFAULT_LOG_SECONDS = 60;
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Long> lastReported = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Начинает замер. Закрыть через try-with-resources или вручную, когда операция закончится.
+     */
+    public static Timing time(String name) {
+        return new Timing(name, histogram(name));
+    }
+
+    public static Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    public static Map<String, TimingSnapshot> timings() {
+        Map<String, TimingSnapshot> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return values;
+    }
+
+    public static void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+        lastReported.clear();
+    }
+
+    /** Регистрирует MXBean и запускает периодический отчёт в лог. Повторный вызов ничего не делает. */
+    public static synchronized void start() {
+        if (reporter != null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new MetricsJmx(), name);
+        } catch (JMException e) {
+            logger.warn("Не удалось опубликовать метрики в JMX", e);
+        }
+
+        long seconds = Long.getLong("soundwave.metrics.logSeconds", DEFAULT_LOG_SECONDS);
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-report");
+            t.setDaemon(true);
+            return t;
+        });
+        if (seconds > 0) reporter.scheduleAtFixedRate(Metrics::report, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /** Останавливает отчёты и пишет последний — итог сессии. */
+    public static synchronized void stop() {
+        if (reporter == null) return;
+        reporter.shutdownNow();
+        reporter = null;
+        report();
+    }
+
+    /**
+     * Пишет в лог одну строку с метриками, изменившимися с прошлого отчёта.
+     */
+    static void report() {
+        StringJoiner line = new StringJoiner("; ");
+        counters().forEach((name, value) -> {
+            if (!value.equals(lastReported.put(name, value))) line.add(name + "=" + value);
+        });
+        timings().forEach((name, snapshot) -> {
+            Long previous = lastReported.put("#" + name, snapshot.getCount());
+            if (previous == null || previous != snapshot.getCount()) line.add(name + " " + snapshot);
+        });
+        if (line.length() > 0) logger.info("Метрики: {}", line);
+    }
+
+    private static final class MetricsJmx implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            return counters();
+        }
+
+        @Override
+        public Map<String, TimingSnapshot> getTimings() {
+            return timings();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.soundwave.metrics;
+
+import java.util.Map;
+
+/**
+ * Метрики плеера в JMX (com.soundwave:type=Metrics), например в JConsole или VisualVM.
+ */
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, TimingSnapshot> getTimings();
+
+    /** Обнуляет всё, например перед замером конкретного сценария. */
+    void reset();
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.soundwave.metrics;
+
+/**
+ * Один замер: от {@link Metrics#time} до {@link #close()}. Заодно это событие JFR,
+ * поэтому замеры видны в Flight Recorder рядом с паузами GC.
+ * Можно закрыть из другого потока (например, когда плеер наконец заиграл); повторное закрытие игнорируется.
+ */
+public final class Timing implements AutoCloseable {
+    private final LatencyHistogram histogram;
+    private final TimingEvent event;
+    private final long start;
+    private boolean closed;
+
+    Timing(String metric, LatencyHistogram histogram) {
+        this.histogram = histogram;
+        this.event = new TimingEvent();
+        this.event.metric = metric;
+        this.event.begin();
+        this.start = System.nanoTime();
+    }
+
+    /** Длительность с начала замера, не закрывая его. */
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        histogram.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) event.commit();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.soundwave.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR для каждого замера. Включается в профиле записи как com.soundwave.Timing;
+ * когда запись не идёт, стоит одну проверку флага.
+ */
+@Name("com.soundwave.Timing")
+@Label("SoundWave Timing")
+@Category("SoundWave")
+@Description("Длительность операции плеера: сканирование, разбор тегов, сохранение, перестройка сетки, смена трека")
+@StackTrace(false)
+class TimingEvent extends Event {
+    @Label("Metric")
+    String metric;
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.soundwave.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Locale;
+
+/**
+ * Сводка по одной гистограмме, в миллисекундах. Геттеры нужны JMX: из них строится CompositeData.
+ */
+public final class TimingSnapshot {
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorProperties({"count", "meanMillis", "p50Millis", "p99Millis", "maxMillis"})
+    public TimingSnapshot(long count, double meanMillis, double p50Millis, double p99Millis, double maxMillis) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d p50=%.2fms p99=%.2fms max=%.2fms", count, p50Millis, p99Millis, maxMillis);
+    }
+}
\ No newline at end of file
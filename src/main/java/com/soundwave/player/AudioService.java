@@ -14,11 +14,20 @@ public interface AudioService {
     void stop();
     void seek(Duration duration);
     void setOnEndOfMedia(Runnable action);
+
+    // Заранее готовит следующий трек, чтобы переход был без паузы. null — следующего нет.
+    void prepareNext(Song song);
+
+    // Длительность кроссфейда между треками, Duration.ZERO — просто бесшовный переход
+    void setCrossfade(Duration duration);
     
     boolean isPlaying();
     
     DoubleProperty volumeProperty();
     ReadOnlyObjectProperty<Duration> currentTimeProperty();
+
+    // Текущая позиция или Duration.ZERO, если ничего не играет. Читать из потока JavaFX
+    Duration getCurrentTime();
     
     // Используем EqualizerBand
     ObservableList<EqualizerBand> getEqualizerBands();
@@ -0,0 +1,27 @@
+package com.soundwave.player;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+
+/**
+ * Куда уходит PCM из SampledAudioService: звуковая карта, файл или никуда (для тестов без устройства).
+ */
+public interface AudioSink extends AutoCloseable {
+    void open(AudioFormat format) throws IOException;
+
+    /**
+     * Пишет данные. Для настоящего устройства блокируется, пока оно не примет данные —
+     * этим поток вывода и отмеряет реальное время.
+     */
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    default void pause() {}
+
+    default void resume() {}
+
+    /** Дожидается, пока всё записанное будет воспроизведено. */
+    default void drain() {}
+
+    @Override
+    void close();
+}
\ No newline at end of file
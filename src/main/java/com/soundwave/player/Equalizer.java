@@ -0,0 +1,150 @@
+package com.soundwave.player;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.media.EqualizerBand;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Программный 10-полосный эквалайзер: по пиковому biquad-фильтру (RBJ) на полосу.
+ * Всё состояние выделяется в конструкторе, process() не создаёт объектов.
+ * Усиления меняются из любого потока; фильтр подтягивается к ним постепенно,
+ * не больше MAX_STEP_DB за блок, поэтому движение ползунка не даёт щелчков.
+ */
+public final class Equalizer {
+    /** Частоты полос — те же, что у AudioEqualizer в JavaFX. */
+    public static final double[] CENTER_FREQUENCIES = {32, 64, 125, 250, 500, 1000, 2000, 4000, 8000, 16000};
+    public static final double MIN_GAIN_DB = EqualizerBand.MIN_GAIN;
+    public static final double MAX_GAIN_DB = EqualizerBand.MAX_GAIN;
+
+    private static final double Q = 1.41;
+    private static final float MAX_STEP_DB = 2f;
+    private static final float DENORMAL = 1e-20f;
+
+    private final int channels;
+    private final double sampleRate;
+    private final int bands;
+    private final boolean[] usable; // Полосы выше ~Найквиста пропускаем
+
+    // Целевые усиления в виде битов float — пишет GUI, читает поток звука
+    private final AtomicIntegerArray targetGain;
+    private final float[] currentGain;
+
+    // Коэффициенты, нормированные на a0
+    private final float[] b0, b1, b2, a1, a2;
+    // Состояние транспонированной прямой формы II: [полоса * channels + канал]
+    private final float[] z1, z2;
+
+    public Equalizer(double sampleRate, int channels) {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.bands = CENTER_FREQUENCIES.length;
+        this.usable = new boolean[bands];
+        this.targetGain = new AtomicIntegerArray(bands);
+        this.currentGain = new float[bands];
+        this.b0 = new float[bands];
+        this.b1 = new float[bands];
+        this.b2 = new float[bands];
+        this.a1 = new float[bands];
+        this.a2 = new float[bands];
+        this.z1 = new float[bands * channels];
+        this.z2 = new float[bands * channels];
+        for (int band = 0; band < bands; band++) {
+            usable[band] = CENTER_FREQUENCIES[band] < sampleRate * 0.45;
+            computeCoefficients(band, 0);
+        }
+    }
+
+    /**
+     * Полосы для AudioService.getEqualizerBands(): живут дольше одного трека,
+     * поэтому настройки не сбрасываются при переключении.
+     */
+    public static ObservableList<EqualizerBand> createBands() {
+        ObservableList<EqualizerBand> list = FXCollections.observableArrayList();
+        for (double f : CENTER_FREQUENCIES) list.add(new EqualizerBand(f, f / Q, 0));
+        return list;
+    }
+
+    public int channels() {
+        return channels;
+    }
+
+    public int bandCount() {
+        return bands;
+    }
+
+    public void setGain(int band, double gainDb) {
+        float clamped = (float) Math.max(MIN_GAIN_DB, Math.min(MAX_GAIN_DB, gainDb));
+        targetGain.set(band, Float.floatToRawIntBits(clamped));
+    }
+
+    public double getGain(int band) {
+        return Float.intBitsToFloat(targetGain.get(band));
+    }
+
+    /**
+     * Фильтрует блок чередующихся по каналам отсчётов на месте.
+     */
+    public void process(float[] samples, int frames) {
+        int length = frames * channels;
+        for (int band = 0; band < bands; band++) {
+            if (!usable[band]) continue;
+            rampGain(band);
+            if (currentGain[band] == 0f) continue; // Плоская полоса — фильтр не нужен
+
+            float c0 = b0[band], c1 = b1[band], c2 = b2[band], d1 = a1[band], d2 = a2[band];
+            for (int ch = 0; ch < channels; ch++) {
+                int s = band * channels + ch;
+                float s1 = z1[s], s2 = z2[s];
+                for (int i = ch; i < length; i += channels) {
+                    float x = samples[i];
+                    float y = c0 * x + s1;
+                    s1 = c1 * x - d1 * y + s2;
+                    s2 = c2 * x - d2 * y;
+                    samples[i] = y;
+                }
+                // Денормализованные числа на затухании сильно тормозят арифметику
+                z1[s] = Math.abs(s1) < DENORMAL ? 0f : s1;
+                z2[s] = Math.abs(s2) < DENORMAL ? 0f : s2;
+            }
+        }
+    }
+
+    /** Сбрасывает состояние фильтров (после перемотки). */
+    public void reset() {
+        Arrays.fill(z1, 0f);
+        Arrays.fill(z2, 0f);
+    }
+
+    private void rampGain(int band) {
+        float target = Float.intBitsToFloat(targetGain.get(band));
+        float current = currentGain[band];
+        if (current == target) return;
+        float next = Math.abs(target - current) <= MAX_STEP_DB
+                ? target
+                : current + Math.copySign(MAX_STEP_DB, target - current);
+        computeCoefficients(band, next);
+        if (next == 0f) {
+            // На 0 дБ фильтр прозрачен, и дальше полоса обходится — начинаем потом с чистого состояния
+            Arrays.fill(z1, band * channels, (band + 1) * channels, 0f);
+            Arrays.fill(z2, band * channels, (band + 1) * channels, 0f);
+        }
+    }
+
+    private void computeCoefficients(int band, float gainDb) {
+        currentGain[band] = gainDb;
+        double amp = Math.pow(10, gainDb / 40.0);
+        double w0 = 2 * Math.PI * CENTER_FREQUENCIES[band] / sampleRate;
+        double alpha = Math.sin(w0) / (2 * Q);
+        double cos = Math.cos(w0);
+        double a0 = 1 + alpha / amp;
+
+        b0[band] = (float) ((1 + alpha * amp) / a0);
+        b1[band] = (float) (-2 * cos / a0);
+        b2[band] = (float) ((1 - alpha * amp) / a0);
+        a1[band] = (float) (-2 * cos / a0);
+        a2[band] = (float) ((1 - alpha / amp) / a0);
+    }
+}
\ No newline at end of file
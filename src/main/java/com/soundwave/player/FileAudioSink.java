@@ -0,0 +1,73 @@
+package com.soundwave.player;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Пишет звук в WAV-файл вместо устройства — для проверки движка без звуковой карты.
+ * Размеры в заголовке проставляются при закрытии.
+ */
+public class FileAudioSink implements AudioSink {
+    private static final int HEADER_SIZE = 44;
+
+    private final Path file;
+    private FileChannel channel;
+    private AudioFormat format;
+    private long dataBytes;
+
+    public FileAudioSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open(AudioFormat format) throws IOException {
+        close();
+        this.format = format;
+        this.dataBytes = 0;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.write(header(), 0); // Заглушка, перепишем при закрытии
+        channel.position(HEADER_SIZE);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (channel == null) return;
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        while (buffer.hasRemaining()) channel.write(buffer);
+        dataBytes += length;
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.write(header(), 0);
+            channel.close();
+        } catch (IOException ignored) {
+            // Файл останется с неполным заголовком
+        }
+        channel = null;
+    }
+
+    private ByteBuffer header() {
+        int channels = format.getChannels();
+        int sampleRate = (int) format.getSampleRate();
+        int bits = format.getSampleSizeInBits();
+        int blockAlign = format.getFrameSize();
+
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(new byte[]{'R', 'I', 'F', 'F'}).putInt((int) (36 + dataBytes));
+        b.put(new byte[]{'W', 'A', 'V', 'E', 'f', 'm', 't', ' '}).putInt(16);
+        b.putShort((short) 1).putShort((short) channels).putInt(sampleRate)
+                .putInt(sampleRate * blockAlign).putShort((short) blockAlign).putShort((short) bits);
+        b.put(new byte[]{'d', 'a', 't', 'a'}).putInt((int) dataBytes);
+        b.flip();
+        return b;
+    }
+}
\ No newline at end of file
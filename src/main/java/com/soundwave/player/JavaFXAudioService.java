@@ -1,6 +1,11 @@
 package com.soundwave.player;
 
 import com.soundwave.core.Song;
+import com.soundwave.metrics.Metrics;
+import com.soundwave.metrics.Timing;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -9,35 +14,106 @@ import javafx.scene.media.EqualizerBand; // Исправлено
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JavaFXAudioService implements AudioService {
+    private static final Logger logger = LoggerFactory.getLogger(JavaFXAudioService.class);
+
     private MediaPlayer mediaPlayer;
     private final DoubleProperty volume = new SimpleDoubleProperty(0.5);
     private Runnable endOfMediaAction;
+    // Полосы эквалайзера общие для всех плееров: настройки переживают смену трека
+    private final ObservableList<EqualizerBand> equalizerBands = Equalizer.createBands();
+
+    // --- ПРЕДЗАГРУЗКА СЛЕДУЮЩЕГО ТРЕКА ---
+    // Следующий плеер создаётся заранее и успевает подготовить декодер, пока играет текущий.
+    private Song currentSong;
+    private Song nextSong;
+    private MediaPlayer nextPlayer;
+    private final DoubleProperty currentGain = new SimpleDoubleProperty(1.0);
+    private DoubleProperty nextGain = new SimpleDoubleProperty(1.0);
+    private Duration crossfade = Duration.ZERO;
+    private boolean autoAdvanced; // Следующий трек уже запущен сервисом, play() его не перезапускает
+    // Идущий кроссфейд и доигрывающий под ним плеер: play() и stop() обрывают их
+    private Timeline fadeTimeline;
+    private MediaPlayer fadingPlayer;
+    // Замер смены трека, который ещё ждёт начала звука: следующий play() закрывает его
+    private Timing pendingSwitch;
 
     @Override
     public void play(Song song) {
+        if (autoAdvanced && song.equals(currentSong)) {
+            autoAdvanced = false;
+            return;
+        }
+        autoAdvanced = false;
+        stopFade();
+
         if (mediaPlayer != null) {
             mediaPlayer.stop();
             mediaPlayer.dispose();
+            mediaPlayer = null;
         }
 
+        // Смена трека: от команды до фактического начала звука
+        if (pendingSwitch != null) pendingSwitch.close();
+        Timing trackSwitch = Metrics.time("playback.trackSwitch");
+        pendingSwitch = trackSwitch;
         try {
-            Media media = new Media(song.filePath().toUri().toString());
-            mediaPlayer = new MediaPlayer(media);
-            
-            mediaPlayer.volumeProperty().bind(volume);
-            
-            if (endOfMediaAction != null) {
-                mediaPlayer.setOnEndOfMedia(endOfMediaAction);
+            if (nextPlayer != null && song.equals(nextSong)) {
+                promoteNext();
+                Metrics.counter("playback.preloadHits").increment();
+            } else {
+                discardNext();
+                currentGain.set(1.0);
+                mediaPlayer = createPlayer(song, currentGain);
+                currentSong = song;
             }
+            attachHandlers(mediaPlayer);
+            MediaPlayer player = mediaPlayer;
+            player.setOnPlaying(() -> {
+                trackSwitch.close();
+                player.setOnPlaying(null);
+            });
+            player.setOnError(() -> {
+                trackSwitch.close();
+                Metrics.counter("playback.errors").increment();
+                logger.error("Ошибка воспроизведения: {}", song.filePath(), player.getError());
+            });
+            player.play();
+        } catch (Exception e) {
+            trackSwitch.close();
+            Metrics.counter("playback.errors").increment();
+            logger.error("Ошибка воспроизведения: {}", song.filePath(), e);
+        }
+    }
+
+    @Override
+    public void prepareNext(Song song) {
+        if (song == null || song.equals(currentSong)) {
+            discardNext();
+            return;
+        }
+        if (nextPlayer != null && song.equals(nextSong)) return;
 
-            mediaPlayer.play();
+        discardNext();
+        try {
+            nextGain = new SimpleDoubleProperty(1.0);
+            nextPlayer = createPlayer(song, nextGain);
+            nextSong = song;
         } catch (Exception e) {
-            System.err.println("Ошибка воспроизведения: " + e.getMessage());
+            // Не получилось заранее — следующий трек откроется обычным путём
+            nextPlayer = null;
+            nextSong = null;
         }
     }
 
+    @Override
+    public void setCrossfade(Duration duration) {
+        this.crossfade = duration == null ? Duration.ZERO : duration;
+    }
+
     @Override
     public void pause() { if (mediaPlayer != null) mediaPlayer.pause(); }
 
@@ -45,7 +121,10 @@ public class JavaFXAudioService implements AudioService {
     public void resume() { if (mediaPlayer != null) mediaPlayer.play(); }
 
     @Override
-    public void stop() { if (mediaPlayer != null) mediaPlayer.stop(); }
+    public void stop() {
+        stopFade();
+        if (mediaPlayer != null) mediaPlayer.stop();
+    }
 
     @Override
     public void seek(Duration duration) { if (mediaPlayer != null) mediaPlayer.seek(duration); }
@@ -58,9 +137,6 @@ public class JavaFXAudioService implements AudioService {
     @Override
     public void setOnEndOfMedia(Runnable action) {
         this.endOfMediaAction = action;
-        if (mediaPlayer != null) {
-            mediaPlayer.setOnEndOfMedia(action);
-        }
     }
 
     @Override
@@ -71,9 +147,118 @@ public class JavaFXAudioService implements AudioService {
         return mediaPlayer != null ? mediaPlayer.currentTimeProperty() : null;
     }
 
+    @Override
+    public Duration getCurrentTime() {
+        return mediaPlayer != null ? mediaPlayer.getCurrentTime() : Duration.ZERO;
+    }
+
     @Override
     public ObservableList<EqualizerBand> getEqualizerBands() {
-        // Возвращаем полосы из текущего mediaPlayer
-        return mediaPlayer != null ? mediaPlayer.getAudioEqualizer().getBands() : null;
+        return equalizerBands;
+    }
+
+    private MediaPlayer createPlayer(Song song, DoubleProperty gain) {
+        Media media = new Media(song.filePath().toUri().toString());
+        MediaPlayer player = new MediaPlayer(media);
+        // Итоговая громкость = общая громкость × множитель для кроссфейда
+        player.volumeProperty().bind(volume.multiply(gain));
+        // Полосы плеера следуют за общими, поэтому ползунки работают и до первого play()
+        ObservableList<EqualizerBand> playerBands = player.getAudioEqualizer().getBands();
+        for (int i = 0; i < Math.min(playerBands.size(), equalizerBands.size()); i++) {
+            playerBands.get(i).gainProperty().bind(equalizerBands.get(i).gainProperty());
+        }
+        return player;
+    }
+
+    private void attachHandlers(MediaPlayer player) {
+        player.setOnEndOfMedia(() -> advance(player));
+        if (crossfade.greaterThan(Duration.ZERO)) {
+            player.currentTimeProperty().addListener((obs, old, time) -> {
+                Duration total = player.getTotalDuration();
+                if (player != mediaPlayer || nextPlayer == null || total == null || total.isUnknown()) return;
+                if (total.subtract(time).lessThanOrEqualTo(crossfade)) advance(player);
+            });
+        }
+    }
+
+    /**
+     * Переход на подготовленный трек: без кроссфейда — сразу по окончании текущего,
+     * с кроссфейдом — заранее, плавно меняя громкости.
+     */
+    private void advance(MediaPlayer finished) {
+        if (finished != mediaPlayer) return;
+        finished.setOnEndOfMedia(null);
+
+        if (nextPlayer == null) {
+            if (endOfMediaAction != null) endOfMediaAction.run();
+            return;
+        }
+
+        // Предыдущий кроссфейд, если он ещё шёл, обрываем: переход начинается заново
+        stopFade();
+        boolean fade = crossfade.greaterThan(Duration.ZERO)
+                && finished.getStatus() == MediaPlayer.Status.PLAYING;
+        DoubleProperty fadingGain = new SimpleDoubleProperty(1.0);
+        if (fade) {
+            // Старый плеер доигрывает со своим множителем, currentGain переходит к новому
+            finished.volumeProperty().bind(volume.multiply(fadingGain));
+        } else {
+            finished.stop();
+        }
+
+        promoteNext();
+        attachHandlers(mediaPlayer);
+        if (fade) currentGain.set(0.0);
+        mediaPlayer.play();
+        autoAdvanced = true;
+
+        if (fade) {
+            fadingPlayer = finished;
+            fadeTimeline = new Timeline(
+                    new KeyFrame(Duration.ZERO,
+                            new KeyValue(fadingGain, 1.0), new KeyValue(currentGain, 0.0)),
+                    new KeyFrame(crossfade,
+                            new KeyValue(fadingGain, 0.0), new KeyValue(currentGain, 1.0)));
+            fadeTimeline.setOnFinished(e -> stopFade());
+            fadeTimeline.play();
+        } else {
+            finished.dispose();
+        }
+
+        if (endOfMediaAction != null) endOfMediaAction.run();
+    }
+
+    /**
+     * Обрывает кроссфейд: доигрывающий плеер останавливается и освобождается,
+     * текущий трек сразу звучит в полную громкость.
+     */
+    private void stopFade() {
+        if (fadeTimeline != null) {
+            fadeTimeline.stop();
+            fadeTimeline = null;
+            currentGain.set(1.0);
+        }
+        if (fadingPlayer != null) {
+            fadingPlayer.stop();
+            fadingPlayer.dispose();
+            fadingPlayer = null;
+        }
+    }
+
+    private void promoteNext() {
+        mediaPlayer = nextPlayer;
+        currentSong = nextSong;
+        currentGain.set(1.0);
+        mediaPlayer.volumeProperty().bind(volume.multiply(currentGain));
+        nextPlayer = null;
+        nextSong = null;
+    }
+
+    private void discardNext() {
+        if (nextPlayer != null) {
+            nextPlayer.dispose();
+            nextPlayer = null;
+        }
+        nextSong = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.soundwave.player;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+
+/**
+ * Вывод на звуковую карту через SourceDataLine.
+ * Размер буфера линии — компромисс: меньше задержка или меньше риск опустошения.
+ */
+public class LineAudioSink implements AudioSink {
+    private final int bufferMillis;
+    private SourceDataLine line;
+
+    public LineAudioSink(int bufferMillis) {
+        this.bufferMillis = bufferMillis;
+    }
+
+    @Override
+    public void open(AudioFormat format) throws IOException {
+        close();
+        int bytes = (int) (format.getFrameRate() * bufferMillis / 1000) * format.getFrameSize();
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, Math.max(bytes, format.getFrameSize()));
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            line = null;
+            throw new IOException("Звуковое устройство недоступно для формата " + format, e);
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        if (line != null) line.write(data, offset, length);
+    }
+
+    @Override
+    public void pause() {
+        if (line != null) line.stop();
+    }
+
+    @Override
+    public void resume() {
+        if (line != null) line.start();
+    }
+
+    @Override
+    public void drain() {
+        if (line != null) line.drain();
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+            line = null;
+        }
+    }
+}
\ No newline at end of file
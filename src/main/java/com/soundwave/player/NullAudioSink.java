@@ -0,0 +1,52 @@
+package com.soundwave.player;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Выбрасывает звук, но считает байты. Нужен для проверки движка без звуковой карты.
+ * В режиме realTime принимает данные со скоростью воспроизведения, как настоящее устройство.
+ */
+public class NullAudioSink implements AudioSink {
+    private final boolean realTime;
+    private volatile long bytesWritten;
+    private double bytesPerNano;
+    private long startNanos;
+    private long pacedBytes;
+
+    public NullAudioSink(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    @Override
+    public void open(AudioFormat format) {
+        bytesPerNano = format.getFrameRate() * format.getFrameSize() / TimeUnit.SECONDS.toNanos(1);
+        resume();
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        bytesWritten += length;
+        if (!realTime) return;
+
+        pacedBytes += length;
+        long due = startNanos + (long) (pacedBytes / bytesPerNano);
+        long wait = due - System.nanoTime();
+        if (wait > 0) LockSupport.parkNanos(wait);
+    }
+
+    @Override
+    public void resume() {
+        startNanos = System.nanoTime();
+        pacedBytes = 0;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() {
+    }
+}
\ No newline at end of file
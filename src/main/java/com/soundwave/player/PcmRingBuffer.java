@@ -0,0 +1,80 @@
+package com.soundwave.player;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кольцевой буфер PCM-байт между потоком декодера (пишет) и потоком вывода (читает).
+ * Рассчитан ровно на одного писателя и одного читателя, поэтому обходится без блокировок:
+ * каждая сторона двигает только свой счётчик и публикует его после копирования данных.
+ */
+public final class PcmRingBuffer {
+    private final byte[] buffer;
+    private final int mask;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    public PcmRingBuffer(int minCapacity) {
+        if (minCapacity <= 0) throw new IllegalArgumentException("Ёмкость буфера должна быть положительной");
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) capacity <<= 1;
+        this.buffer = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /** Сколько байт можно прочитать. */
+    public int available() {
+        return (int) (writePosition.get() - readPosition.get());
+    }
+
+    /** Сколько байт можно записать. */
+    public int free() {
+        return buffer.length - available();
+    }
+
+    /** Сколько байт записано за всё время — по этой шкале отмечаются границы треков. */
+    public long totalWritten() {
+        return writePosition.get();
+    }
+
+    public long totalRead() {
+        return readPosition.get();
+    }
+
+    /**
+     * Записывает сколько поместится, не дожидаясь места. Только для потока-писателя.
+     */
+    public int write(byte[] src, int offset, int length) {
+        long w = writePosition.get();
+        int n = Math.min(length, buffer.length - (int) (w - readPosition.get()));
+        if (n <= 0) return 0;
+
+        int start = (int) (w & mask);
+        int first = Math.min(n, buffer.length - start);
+        System.arraycopy(src, offset, buffer, start, first);
+        if (n > first) System.arraycopy(src, offset + first, buffer, 0, n - first);
+        writePosition.lazySet(w + n);
+        return n;
+    }
+
+    /**
+     * Читает не больше length байт, округляя вниз до кратного align (размер кадра).
+     * Только для потока-читателя.
+     */
+    public int read(byte[] dst, int offset, int length, int align) {
+        long r = readPosition.get();
+        int n = Math.min(length, (int) (writePosition.get() - r));
+        n -= n % align;
+        if (n <= 0) return 0;
+
+        int start = (int) (r & mask);
+        int first = Math.min(n, buffer.length - start);
+        System.arraycopy(buffer, start, dst, offset, first);
+        if (n > first) System.arraycopy(buffer, 0, dst, offset + first, n - first);
+        readPosition.lazySet(r + n);
+        return n;
+    }
+}
\ No newline at end of file
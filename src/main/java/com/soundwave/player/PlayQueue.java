@@ -0,0 +1,281 @@
+package com.soundwave.player;
+
+import com.soundwave.core.Song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Очередь воспроизведения: треки, порядок их обхода и курсор в этом порядке.
+ * Треки библиотеки хранятся ключами ({@link Tracks}), песня собирается, только когда до неё дошла очередь,
+ * поэтому очередь из всей библиотеки не держит Song и Path на каждый трек. Песни, которых в библиотеке нет,
+ * хранятся как есть. Порядок — перестановка индексов order[], перемешивание делается в ней на месте
+ * (Фишер–Йетс), сами треки не двигаются. Переходы вперёд/назад — O(1), выделяется только возвращаемая песня.
+ * Используется из потока JavaFX, не потокобезопасна.
+ */
+public class PlayQueue {
+    public enum RepeatMode { OFF, ALL, ONE }
+
+    /** Ключи треков библиотеки. Очередь не знает, откуда они берутся. */
+    public interface Tracks {
+        /** Без библиотеки: все песни хранятся как есть. */
+        Tracks NONE = new Tracks() {
+            @Override
+            public int key(Song song) {
+                return -1;
+            }
+
+            @Override
+            public Song song(int key) {
+                return null;
+            }
+        };
+
+        /** Ключ трека песни или -1, если её нет в библиотеке. */
+        int key(Song song);
+
+        /** Песня по ключу или null, если трек удалён. */
+        Song song(int key);
+    }
+
+    private static final int HISTORY_SIZE = 100;
+
+    private final Tracks tracks;
+    // Элемент очереди: ключ трека (>= 0) или -(номер в detached + 1) для песни не из библиотеки
+    private int[] items = new int[16];
+    private int[] order = new int[16]; // order[позиция] = индекс трека в items
+    private Song[] detached = new Song[0];
+    private int detachedCount;
+    private int size;
+    private int cursor = -1;
+    private boolean shuffle;
+    // По умолчанию очередь идёт по кругу, как проигрыватель всегда делал до режимов повтора
+    private RepeatMode repeatMode = RepeatMode.ALL;
+    private final Random random;
+
+    // Кольцевой буфер уже сыгранных треков
+    private final Song[] history = new Song[HISTORY_SIZE];
+    private int historyEnd;
+    private int historySize;
+
+    public PlayQueue() {
+        this(Tracks.NONE);
+    }
+
+    public PlayQueue(Tracks tracks) {
+        this(tracks, new Random());
+    }
+
+    public PlayQueue(Tracks tracks, Random random) {
+        this.tracks = tracks;
+        this.random = random;
+    }
+
+    /**
+     * Заменяет очередь треками songs, текущим становится songs[startIndex].
+     * Массивы переиспользуются, если хватает места.
+     */
+    public void setQueue(List<Song> songs, int startIndex) {
+        if (startIndex < 0 || startIndex >= songs.size()) throw new IndexOutOfBoundsException(startIndex);
+        clearItems(songs.size());
+        for (int i = 0; i < size; i++) {
+            items[i] = itemOf(songs.get(i));
+            order[i] = i;
+        }
+        startAt(startIndex);
+    }
+
+    /**
+     * Заменяет очередь треками библиотеки по ключам, текущим становится keys[startIndex].
+     * Песни не собираются: так очередь из всей библиотеки ставится без копии её песен.
+     */
+    public void setQueue(int[] keys, int startIndex) {
+        if (startIndex < 0 || startIndex >= keys.length) throw new IndexOutOfBoundsException(startIndex);
+        clearItems(keys.length);
+        System.arraycopy(keys, 0, items, 0, size);
+        for (int i = 0; i < size; i++) order[i] = i;
+        startAt(startIndex);
+    }
+
+    /** Текущий трек или null; если его удалили из библиотеки — тоже null. */
+    public Song current() {
+        return cursor >= 0 ? songAt(cursor) : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Трек после окончания текущего: повтор одного — тот же, повтор всех — по кругу,
+     * без повтора — null в конце очереди. Треки, удалённые из библиотеки, пропускаются.
+     */
+    public Song next() {
+        if (repeatMode == RepeatMode.ONE) return current();
+        for (int tries = 0; tries < size; tries++) {
+            int target = following();
+            if (target < 0) return null;
+            Song song = moveTo(target);
+            if (song != null) return song;
+        }
+        return null;
+    }
+
+    /** Переход по кнопке «вперёд»: повтор одного трека не держит на месте. */
+    public Song skip() {
+        int target = following();
+        if (target < 0 && repeatMode == RepeatMode.ONE && size > 0) target = 0;
+        return moveTo(target);
+    }
+
+    /** Что вернёт next(), не сдвигая курсор, — для предзагрузки. */
+    public Song peekNext() {
+        if (repeatMode == RepeatMode.ONE) return current();
+        int target = following();
+        return target >= 0 ? songAt(target) : null;
+    }
+
+    /** Предыдущий трек в порядке очереди; в начале — по кругу при повторе всех, иначе остаёмся на первом. */
+    public Song previous() {
+        if (cursor < 0) return null;
+        int target = cursor - 1;
+        if (target < 0) target = repeatMode == RepeatMode.ALL ? size - 1 : 0;
+        return moveTo(target);
+    }
+
+    /** Ставит трек сразу после текущего. */
+    public void playNext(Song song) {
+        if (cursor < 0) {
+            setQueue(List.of(song), 0);
+            return;
+        }
+        ensureCapacity(size + 1);
+        // В исходном порядке трек тоже встаёт после текущего — чтобы это сохранилось при выключении перемешивания
+        int at = order[cursor] + 1;
+        System.arraycopy(items, at, items, at + 1, size - at);
+        items[at] = itemOf(song);
+        for (int i = 0; i < size; i++) {
+            if (order[i] >= at) order[i]++;
+        }
+        System.arraycopy(order, cursor + 1, order, cursor + 2, size - cursor - 1);
+        order[cursor + 1] = at;
+        size++;
+    }
+
+    /** Добавляет трек в конец очереди. */
+    public void add(Song song) {
+        if (cursor < 0) {
+            setQueue(List.of(song), 0);
+            return;
+        }
+        ensureCapacity(size + 1);
+        items[size] = itemOf(song);
+        order[size] = size;
+        size++;
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    /**
+     * Включает или выключает перемешивание. Текущий трек остаётся текущим:
+     * при включении он становится первым, остальные перемешиваются.
+     */
+    public void setShuffle(boolean shuffle) {
+        if (this.shuffle == shuffle) return;
+        this.shuffle = shuffle;
+        if (cursor < 0) return;
+        int currentItem = order[cursor];
+        for (int i = 0; i < size; i++) order[i] = i;
+        if (shuffle) {
+            shuffleAround(currentItem);
+        } else {
+            cursor = currentItem;
+        }
+    }
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+    public void setRepeatMode(RepeatMode repeatMode) {
+        this.repeatMode = repeatMode;
+    }
+
+    /** Сыгранные треки, последний — первым. */
+    public List<Song> getHistory() {
+        List<Song> result = new ArrayList<>(historySize);
+        for (int i = 1; i <= historySize; i++) {
+            result.add(history[(historyEnd - i + HISTORY_SIZE) % HISTORY_SIZE]);
+        }
+        return result;
+    }
+
+    private int following() {
+        if (cursor < 0) return -1;
+        if (cursor + 1 < size) return cursor + 1;
+        return repeatMode == RepeatMode.ALL ? 0 : -1;
+    }
+
+    private Song moveTo(int target) {
+        if (target < 0) return null;
+        if (target != cursor) remember(current());
+        cursor = target;
+        return current();
+    }
+
+    private Song songAt(int position) {
+        int item = items[order[position]];
+        return item >= 0 ? tracks.song(item) : detached[-item - 1];
+    }
+
+    private int itemOf(Song song) {
+        int key = tracks.key(song);
+        if (key >= 0) return key;
+        if (detachedCount == detached.length) detached = Arrays.copyOf(detached, Math.max(4, detachedCount * 2));
+        detached[detachedCount++] = song;
+        return -detachedCount;
+    }
+
+    private void clearItems(int newSize) {
+        ensureCapacity(newSize);
+        Arrays.fill(detached, 0, detachedCount, null);
+        detachedCount = 0;
+        size = newSize;
+    }
+
+    private void startAt(int startIndex) {
+        cursor = startIndex;
+        if (shuffle) shuffleAround(startIndex);
+    }
+
+    private void remember(Song song) {
+        if (song == null) return;
+        history[historyEnd] = song;
+        historyEnd = (historyEnd + 1) % HISTORY_SIZE;
+        if (historySize < HISTORY_SIZE) historySize++;
+    }
+
+    /** Текущий трек — в начало, остальное перемешивается на месте. */
+    private void shuffleAround(int currentItem) {
+        order[currentItem] = 0;
+        order[0] = currentItem;
+        for (int i = size - 1; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        cursor = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= items.length) return;
+        int capacity = Math.max(needed, items.length * 2);
+        items = Arrays.copyOf(items, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
\ No newline at end of file
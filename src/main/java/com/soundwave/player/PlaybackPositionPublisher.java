@@ -0,0 +1,82 @@
+package com.soundwave.player;
+
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Позиция воспроизведения для интерфейса с заданной частотой.
+ * Таймер только будит публикацию: позиция читается и раздаётся подписчикам через callbackExecutor
+ * (для GUI — Platform::runLater), и в его очереди никогда не лежит больше одного обновления.
+ * Одинаковые позиции (пауза, остановка) повторно не рассылаются.
+ * Не зависит от конкретного MediaPlayer: смена трека подписки не трогает.
+ */
+public class PlaybackPositionPublisher implements AutoCloseable {
+    private final AudioService audioService;
+    private final long intervalMillis;
+    private final Executor callbackExecutor;
+    private final List<Consumer<Duration>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "playback-position");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private ScheduledFuture<?> ticking;
+    private Duration last;
+
+    public PlaybackPositionPublisher(AudioService audioService, Duration interval, Executor callbackExecutor) {
+        this.audioService = audioService;
+        this.intervalMillis = Math.max(10, (long) interval.toMillis());
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Подписывает на позицию. Таймер запускается с первым подписчиком и останавливается с последним.
+     * Возвращает действие для отписки.
+     */
+    public synchronized Runnable subscribe(Consumer<Duration> subscriber) {
+        subscribers.add(subscriber);
+        if (ticking == null) {
+            ticking = timer.scheduleAtFixedRate(this::tick, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return () -> unsubscribe(subscriber);
+    }
+
+    public synchronized void unsubscribe(Consumer<Duration> subscriber) {
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty() && ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        subscribers.clear();
+    }
+
+    private void tick() {
+        // Предыдущее обновление ещё не обработано — новое не ставим, оно всё равно прочитает свежую позицию
+        if (!pending.compareAndSet(false, true)) return;
+        callbackExecutor.execute(this::publish);
+    }
+
+    private void publish() {
+        pending.set(false);
+        Duration position = audioService.getCurrentTime();
+        if (position == null || position.equals(last)) return;
+        last = position;
+        for (Consumer<Duration> subscriber : subscribers) subscriber.accept(position);
+    }
+}
\ No newline at end of file
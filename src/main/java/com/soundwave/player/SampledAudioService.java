@@ -0,0 +1,448 @@
+package com.soundwave.player;
+
+import com.soundwave.core.Song;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.ObservableList;
+import javafx.scene.media.EqualizerBand;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Воспроизведение на javax.sound.sampled без MediaPlayer.
+ * Поток декодера переводит файл в 16-битный PCM и пишет в кольцевой буфер,
+ * поток вывода забирает оттуда порции по PERIOD_MILLIS и отдаёт в AudioSink.
+ * Размер буфера — компромисс между задержкой (seek, пауза) и риском опустошения.
+ *
+ * Между буфером и выводом звук проходит через программный Equalizer и регулятор громкости.
+ *
+ * Форматы — те, что умеет AudioSystem: WAV, AIFF, AU. MP3/FLAC появятся,
+ * если положить в classpath соответствующий AudioFileReader (SPI).
+ *
+ * События (конец трека, позиция) приходят через callbackExecutor; для GUI это Platform::runLater.
+ */
+public class SampledAudioService implements AudioService {
+    private static final Logger logger = LoggerFactory.getLogger(SampledAudioService.class);
+
+    public static final int DEFAULT_BUFFER_MILLIS = 500;
+    private static final int PERIOD_MILLIS = 20;
+    private static final long POSITION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long JOIN_TIMEOUT_MS = 1000;
+
+    private final AudioSink sink;
+    private final int bufferMillis;
+    private final Executor callbackExecutor;
+
+    private final DoubleProperty volume = new SimpleDoubleProperty(0.5);
+    private volatile float gain = 0.5f;
+    private final ReadOnlyObjectWrapper<Duration> currentTime = new ReadOnlyObjectWrapper<>(Duration.ZERO);
+    private final ObservableList<EqualizerBand> equalizerBands = Equalizer.createBands();
+    private volatile Equalizer equalizer; // Эквалайзер текущего сеанса, настроен под его формат
+    private volatile Runnable endOfMediaAction;
+
+    private final AtomicLong underruns = new AtomicLong();
+    private final AtomicReference<Song> nextSong = new AtomicReference<>();
+    private volatile Song autoAdvancedTo; // Следующий трек уже играет без разрыва, play() его не перезапускает
+    private Session session;
+
+    public SampledAudioService(AudioSink sink, int bufferMillis, Executor callbackExecutor) {
+        if (bufferMillis < PERIOD_MILLIS * 2) {
+            throw new IllegalArgumentException("Буфер должен быть не меньше " + PERIOD_MILLIS * 2 + " мс");
+        }
+        this.sink = sink;
+        this.bufferMillis = bufferMillis;
+        this.callbackExecutor = callbackExecutor;
+        volume.addListener((obs, old, value) -> gain = value.floatValue());
+        for (int i = 0; i < equalizerBands.size(); i++) {
+            int band = i;
+            equalizerBands.get(i).gainProperty().addListener((obs, old, value) -> {
+                Equalizer eq = equalizer;
+                if (eq != null) eq.setGain(band, value.doubleValue());
+            });
+        }
+    }
+
+    @Override
+    public synchronized void play(Song song) {
+        if (song.equals(autoAdvancedTo)) {
+            autoAdvancedTo = null;
+            return;
+        }
+        autoAdvancedTo = null;
+        stopSession();
+        start(song, 0, false);
+    }
+
+    @Override
+    public synchronized void pause() {
+        if (session != null) session.paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        if (session != null) session.paused = false;
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopSession();
+        autoAdvancedTo = null;
+        callbackExecutor.execute(() -> currentTime.set(Duration.ZERO));
+    }
+
+    /**
+     * Перемотка — это новый сеанс с пропуском начала файла: буфер сбрасывается целиком.
+     */
+    @Override
+    public synchronized void seek(Duration duration) {
+        if (session == null) return;
+        Song song = session.playing;
+        boolean paused = session.paused;
+        stopSession();
+        start(song, (long) Math.max(0, duration.toMillis()), paused);
+    }
+
+    @Override
+    public void setOnEndOfMedia(Runnable action) {
+        this.endOfMediaAction = action;
+    }
+
+    /**
+     * Декодер сам перейдёт к этому треку, дочитав текущий, — если формат PCM совпадает.
+     * Иначе следующий трек откроется обычным play() по окончании текущего.
+     */
+    @Override
+    public void prepareNext(Song song) {
+        nextSong.set(song);
+    }
+
+    /**
+     * Кроссфейд этот движок не делает: переход между треками всегда бесшовный.
+     */
+    @Override
+    public void setCrossfade(Duration duration) {
+    }
+
+    @Override
+    public synchronized boolean isPlaying() {
+        return session != null && !session.paused && !session.finished;
+    }
+
+    @Override
+    public DoubleProperty volumeProperty() {
+        return volume;
+    }
+
+    @Override
+    public ReadOnlyObjectProperty<Duration> currentTimeProperty() {
+        return currentTime.getReadOnlyProperty();
+    }
+
+    @Override
+    public Duration getCurrentTime() {
+        return currentTime.get();
+    }
+
+    @Override
+    public ObservableList<EqualizerBand> getEqualizerBands() {
+        return equalizerBands;
+    }
+
+    /** Сколько раз вывод оставался без данных во время воспроизведения. */
+    public long getUnderrunCount() {
+        return underruns.get();
+    }
+
+    /** Сколько звука сейчас лежит в кольцевом буфере. */
+    public synchronized long getBufferedMillis() {
+        if (session == null) return 0;
+        return session.ring.available() * 1000L / session.bytesPerSecond;
+    }
+
+    private void start(Song song, long offsetMillis, boolean paused) {
+        AudioInputStream stream = null;
+        try {
+            stream = openPcm(song);
+            AudioFormat format = stream.getFormat();
+            long skip = (long) (format.getFrameRate() * offsetMillis / 1000) * format.getFrameSize();
+            while (skip > 0) {
+                long skipped = stream.skip(skip);
+                if (skipped <= 0) break;
+                skip -= skipped;
+            }
+            sink.open(format);
+            session = new Session(song, stream, offsetMillis);
+            session.paused = paused;
+            equalizer = session.eq;
+            session.start();
+        } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+            logger.error("Не удалось воспроизвести {}", song.filePath(), e);
+            closeQuietly(stream);
+            session = null;
+        }
+    }
+
+    private void stopSession() {
+        if (session != null) {
+            session.stop();
+            session = null;
+            sink.close();
+        }
+    }
+
+    /**
+     * Открывает файл как 16-битный little-endian PCM с исходной частотой и числом каналов.
+     */
+    static AudioInputStream openPcm(Song song) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(song.filePath().toFile());
+        AudioFormat f = source.getFormat();
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), 16,
+                f.getChannels(), f.getChannels() * 2, f.getSampleRate(), false);
+        if (f.matches(pcm)) return source;
+        return AudioSystem.getAudioInputStream(pcm, source);
+    }
+
+    /**
+     * 16-битный PCM → float → эквалайзер и громкость → обратно в 16 бит с ограничением.
+     */
+    private static void applyEffects(byte[] data, int length, float[] work, Equalizer eq, float gain) {
+        int samples = length / 2;
+        for (int i = 0; i < samples; i++) {
+            work[i] = (short) ((data[2 * i] & 0xff) | (data[2 * i + 1] << 8));
+        }
+        eq.process(work, samples / eq.channels());
+        for (int i = 0; i < samples; i++) {
+            int sample = Math.round(work[i] * gain);
+            sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+            data[2 * i] = (byte) sample;
+            data[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private static void closeQuietly(AudioInputStream stream) {
+        if (stream == null) return;
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Нечего делать
+        }
+    }
+
+    private void fireEndOfMedia() {
+        Runnable action = endOfMediaAction;
+        if (action != null) callbackExecutor.execute(action);
+    }
+
+    /** Позиция в общем потоке байт, с которой начинается следующий трек. */
+    private record Boundary(long position, Song song) {}
+
+    /**
+     * Один непрерывный поток PCM одного формата: трек и все треки, подхваченные без разрыва.
+     */
+    private final class Session {
+        final AudioFormat format;
+        final int frameSize;
+        final int bytesPerSecond;
+        final int periodBytes;
+        final PcmRingBuffer ring;
+        final Equalizer eq;
+        final Queue<Boundary> boundaries = new ConcurrentLinkedQueue<>();
+        final Thread decoder;
+        final Thread output;
+
+        volatile Song playing;
+        volatile boolean paused;
+        volatile boolean stopped;
+        volatile boolean decoderDone;
+        volatile boolean finished;
+
+        private AudioInputStream stream; // Принадлежит потоку декодера
+        private long trackStartByte;      // Дальше — только поток вывода
+        private long offsetMillis;
+
+        Session(Song song, AudioInputStream stream, long offsetMillis) {
+            this.playing = song;
+            this.stream = stream;
+            this.offsetMillis = offsetMillis;
+            this.format = stream.getFormat();
+            this.frameSize = format.getFrameSize();
+            this.bytesPerSecond = (int) format.getFrameRate() * frameSize;
+            this.periodBytes = Math.max(frameSize, bytesPerSecond * PERIOD_MILLIS / 1000 / frameSize * frameSize);
+            this.ring = new PcmRingBuffer((int) ((long) bytesPerSecond * bufferMillis / 1000));
+            this.eq = new Equalizer(format.getSampleRate(), format.getChannels());
+            for (int i = 0; i < eq.bandCount(); i++) eq.setGain(i, equalizerBands.get(i).getGain());
+            this.decoder = new Thread(this::decode, "audio-decoder");
+            this.output = new Thread(this::output, "audio-output");
+            decoder.setDaemon(true);
+            output.setDaemon(true);
+            output.setPriority(Thread.MAX_PRIORITY);
+        }
+
+        void start() {
+            decoder.start();
+            output.start();
+        }
+
+        void stop() {
+            stopped = true;
+            LockSupport.unpark(decoder);
+            LockSupport.unpark(output);
+            // Обработчик конца трека мог вызвать play() прямо из потока вывода
+            for (Thread t : new Thread[]{decoder, output}) {
+                if (t == Thread.currentThread()) continue;
+                try {
+                    t.join(JOIN_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void decode() {
+            byte[] chunk = new byte[periodBytes];
+            try {
+                while (!stopped) {
+                    int n = stream.read(chunk, 0, chunk.length);
+                    if (n < 0) {
+                        if (continueWithNext()) continue;
+                        break;
+                    }
+                    int offset = 0;
+                    while (offset < n && !stopped) {
+                        int written = ring.write(chunk, offset, n - offset);
+                        offset += written;
+                        if (written == 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS / 2));
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Ошибка декодирования {}", playing.filePath(), e);
+            } finally {
+                closeQuietly(stream);
+                decoderDone = true;
+            }
+        }
+
+        /**
+         * Без разрыва переходим только на трек того же формата — иначе пришлось бы переоткрывать устройство.
+         */
+        private boolean continueWithNext() {
+            Song next = nextSong.getAndSet(null);
+            if (next == null) return false;
+            AudioInputStream nextStream = null;
+            try {
+                nextStream = openPcm(next);
+                if (!nextStream.getFormat().matches(format)) {
+                    closeQuietly(nextStream);
+                    nextSong.compareAndSet(null, next);
+                    return false;
+                }
+            } catch (IOException | UnsupportedAudioFileException e) {
+                logger.warn("Не удалось заранее открыть {}", next.filePath(), e);
+                closeQuietly(nextStream);
+                return false;
+            }
+            closeQuietly(stream);
+            stream = nextStream;
+            boundaries.add(new Boundary(ring.totalWritten(), next));
+            return true;
+        }
+
+        private void output() {
+            byte[] period = new byte[periodBytes];
+            float[] work = new float[periodBytes / 2];
+            long lastPublished = 0;
+            boolean sinkPaused = false;
+            boolean starving = false;
+            try {
+                prefill();
+                while (!stopped) {
+                    if (paused != sinkPaused) {
+                        sinkPaused = paused;
+                        if (sinkPaused) sink.pause();
+                        else sink.resume();
+                    }
+                    if (sinkPaused) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS));
+                        continue;
+                    }
+
+                    crossBoundary();
+                    int limit = periodBytes;
+                    Boundary boundary = boundaries.peek();
+                    if (boundary != null) limit = (int) Math.min(limit, boundary.position() - ring.totalRead());
+
+                    int n = ring.read(period, 0, limit, frameSize);
+                    if (n == 0) {
+                        if (decoderDone && ring.available() < frameSize && boundaries.isEmpty()) break;
+                        if (!starving && !decoderDone) {
+                            starving = true;
+                            underruns.incrementAndGet();
+                            logger.debug("Буфер вывода опустел: {}", playing.filePath());
+                        }
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                        continue;
+                    }
+                    starving = false;
+
+                    applyEffects(period, n, work, eq, gain);
+                    sink.write(period, 0, n);
+
+                    long now = System.nanoTime();
+                    if (now - lastPublished >= POSITION_INTERVAL_NANOS) {
+                        lastPublished = now;
+                        publishPosition();
+                    }
+                }
+                if (!stopped) {
+                    sink.drain();
+                    finished = true;
+                    publishPosition();
+                    fireEndOfMedia();
+                }
+            } catch (IOException e) {
+                logger.error("Ошибка вывода звука", e);
+                finished = true;
+            }
+        }
+
+        /** Перед стартом накапливаем половину буфера, чтобы не споткнуться на первых порциях. */
+        private void prefill() {
+            while (!stopped && !decoderDone && ring.available() < ring.capacity() / 2) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        private void crossBoundary() {
+            Boundary boundary = boundaries.peek();
+            if (boundary == null || ring.totalRead() < boundary.position()) return;
+            boundaries.poll();
+            playing = boundary.song();
+            trackStartByte = boundary.position();
+            offsetMillis = 0;
+            autoAdvancedTo = boundary.song();
+            fireEndOfMedia();
+        }
+
+        private void publishPosition() {
+            long millis = offsetMillis + (ring.totalRead() - trackStartByte) * 1000 / bytesPerSecond;
+            Duration position = Duration.millis(millis);
+            callbackExecutor.execute(() -> currentTime.set(position));
+        }
+    }
+}
\ No newline at end of file
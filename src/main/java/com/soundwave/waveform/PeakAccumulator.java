@@ -0,0 +1,59 @@
+package com.soundwave.waveform;
+
+import java.util.Arrays;
+
+/**
+ * Копит пики коротких блоков, пока длина трека неизвестна, и сводит их в столбцы в конце.
+ */
+final class PeakAccumulator {
+    private float[] min = new float[1024];
+    private float[] max = new float[1024];
+    private int count;
+
+    void add(float blockMin, float blockMax) {
+        if (count == min.length) {
+            min = Arrays.copyOf(min, count * 2);
+            max = Arrays.copyOf(max, count * 2);
+        }
+        min[count] = blockMin;
+        max[count] = blockMax;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Сводит блоки в columns столбцов (меньше, если блоков меньше).
+     * fullScale — значение, которое соответствует 127; 0 — нормировать по самому громкому блоку.
+     */
+    Waveform build(int columns, float fullScale) {
+        int n = Math.min(columns, count);
+        float scale = fullScale;
+        if (scale <= 0) {
+            for (int i = 0; i < count; i++) scale = Math.max(scale, Math.max(-min[i], max[i]));
+            if (scale <= 0) scale = 1;
+        }
+
+        byte[] outMin = new byte[n];
+        byte[] outMax = new byte[n];
+        for (int c = 0; c < n; c++) {
+            int from = (int) ((long) c * count / n);
+            int to = (int) ((long) (c + 1) * count / n);
+            float lo = 0;
+            float hi = 0;
+            for (int i = from; i < to; i++) {
+                lo = Math.min(lo, min[i]);
+                hi = Math.max(hi, max[i]);
+            }
+            outMin[c] = quantize(lo / scale);
+            outMax[c] = quantize(hi / scale);
+        }
+        return new Waveform(outMin, outMax);
+    }
+
+    private static byte quantize(float value) {
+        return (byte) Math.round(Math.max(-1f, Math.min(1f, value)) * 127);
+    }
+}
\ No newline at end of file
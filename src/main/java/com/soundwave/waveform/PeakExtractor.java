@@ -0,0 +1,162 @@
+package com.soundwave.waveform;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Строит сводку пиков за один проход по файлу.
+ * Форматы, которые декодирует AudioSystem (WAV, AIFF, AU), разбираются до PCM — пики точные.
+ * MP3 средствами Java не декодируется, поэтому для него берётся огибающая из заголовков кадров:
+ * global_gain каждой гранулы задаёт масштаб её сэмплов, этого хватает для формы волны.
+ */
+final class PeakExtractor {
+    static final int COLUMNS = 1024;
+
+    private static final int BLOCK_MILLIS = 10;
+
+    private static final int[] MPEG1_BITRATES = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_BITRATES = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    /** Сводка пиков или null, если формат не поддерживается. */
+    Waveform extract(Path file) throws IOException {
+        Waveform pcm = fromPcm(file);
+        return pcm != null ? pcm : fromMpegFrames(file);
+    }
+
+    private static Waveform fromPcm(Path file) throws IOException {
+        AudioInputStream source;
+        try {
+            source = AudioSystem.getAudioInputStream(file.toFile());
+        } catch (UnsupportedAudioFileException e) {
+            return null;
+        }
+        try (source) {
+            AudioFormat f = source.getFormat();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), 16,
+                    f.getChannels(), f.getChannels() * 2, f.getSampleRate(), false);
+            if (!f.matches(pcm) && !AudioSystem.isConversionSupported(pcm, f)) return null;
+            try (AudioInputStream in = f.matches(pcm) ? source : AudioSystem.getAudioInputStream(pcm, source)) {
+                int blockFrames = Math.max(1, (int) (pcm.getSampleRate() * BLOCK_MILLIS / 1000));
+                byte[] block = new byte[blockFrames * pcm.getFrameSize()];
+                PeakAccumulator peaks = new PeakAccumulator();
+                int read;
+                while ((read = in.readNBytes(block, 0, block.length)) > 0) {
+                    if (Thread.currentThread().isInterrupted()) return null;
+                    int lo = 0;
+                    int hi = 0;
+                    for (int i = 0; i + 1 < read; i += 2) {
+                        int sample = (short) ((block[i] & 0xff) | (block[i + 1] << 8));
+                        lo = Math.min(lo, sample);
+                        hi = Math.max(hi, sample);
+                    }
+                    peaks.add(lo, hi);
+                }
+                return peaks.count() > 0 ? peaks.build(COLUMNS, 32768f) : null;
+            }
+        }
+    }
+
+    private static Waveform fromMpegFrames(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) return null;
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            PeakAccumulator peaks = new PeakAccumulator();
+            int pos = skipId3v2(data);
+            int limit = data.limit();
+            boolean synced = false;
+
+            while (pos + 4 <= limit) {
+                int length = frameLength(data, pos);
+                // Вне синхронизации кадр принимаем, только если за ним сразу идёт следующий
+                boolean valid = length > 0 && (synced
+                        || pos + length + 4 > limit || frameLength(data, pos + length) > 0);
+                if (!valid) {
+                    synced = false;
+                    pos++;
+                    continue;
+                }
+                synced = true;
+                if (pos + length > limit) break;
+                addGranules(data, pos, peaks);
+                pos += length;
+                if (Thread.currentThread().isInterrupted()) return null;
+            }
+            return peaks.count() > 0 ? peaks.build(COLUMNS, 0) : null;
+        }
+    }
+
+    private static int skipId3v2(ByteBuffer data) {
+        if (data.limit() < 10 || data.get(0) != 'I' || data.get(1) != 'D' || data.get(2) != '3') return 0;
+        int size = (data.get(6) & 0x7f) << 21 | (data.get(7) & 0x7f) << 14
+                | (data.get(8) & 0x7f) << 7 | (data.get(9) & 0x7f);
+        boolean footer = (data.get(5) & 0x10) != 0;
+        return (int) Math.min(data.limit(), 10L + size + (footer ? 10 : 0));
+    }
+
+    /** Длина кадра MPEG Layer III в байтах или -1, если по адресу не заголовок. */
+    private static int frameLength(ByteBuffer data, int pos) {
+        if (pos + 4 > data.limit()) return -1;
+        int header = data.getInt(pos);
+        if ((header >>> 21) != 0x7ff) return -1;
+        int version = (header >>> 19) & 3;      // 3 — MPEG1, 2 — MPEG2, 0 — MPEG2.5
+        int layer = (header >>> 17) & 3;        // 1 — Layer III
+        int bitrateIndex = (header >>> 12) & 15;
+        int rateIndex = (header >>> 10) & 3;
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || rateIndex == 3) return -1;
+
+        boolean mpeg1 = version == 3;
+        int bitrate = (mpeg1 ? MPEG1_BITRATES : MPEG2_BITRATES)[bitrateIndex] * 1000;
+        int sampleRate = MPEG1_SAMPLE_RATES[rateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+        int padding = (header >>> 9) & 1;
+        return (mpeg1 ? 144 : 72) * bitrate / sampleRate + padding;
+    }
+
+    /**
+     * Читает из side info громкость каждой гранулы: 2^((global_gain - 210) / 4), максимум по каналам.
+     * Гранула без закодированных частот (big_values и part2_3_length нулевые) считается тишиной.
+     */
+    private static void addGranules(ByteBuffer data, int pos, PeakAccumulator peaks) {
+        int header = data.getInt(pos);
+        boolean mpeg1 = ((header >>> 19) & 3) == 3;
+        boolean crc = ((header >>> 16) & 1) == 0;
+        int channels = ((header >>> 6) & 3) == 3 ? 1 : 2;
+        int sideInfo = pos + 4 + (crc ? 2 : 0);
+
+        int bit = mpeg1 ? 9 + (channels == 1 ? 5 : 3) + 4 * channels : 8 + channels;
+        int granules = mpeg1 ? 2 : 1;
+        int granuleBits = mpeg1 ? 59 : 63;
+        for (int gr = 0; gr < granules; gr++) {
+            float loudest = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                int part23 = bits(data, sideInfo, bit, 12);
+                int bigValues = bits(data, sideInfo, bit + 12, 9);
+                int globalGain = bits(data, sideInfo, bit + 21, 8);
+                if (part23 > 0 || bigValues > 0) {
+                    loudest = Math.max(loudest, (float) Math.pow(2, (globalGain - 210) / 4.0));
+                }
+                bit += granuleBits;
+            }
+            peaks.add(-loudest, loudest);
+        }
+    }
+
+    private static int bits(ByteBuffer data, int base, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int index = base + (offset + i) / 8;
+            if (index >= data.limit()) return 0;
+            int b = (data.get(index) >> (7 - (offset + i) % 8)) & 1;
+            value = (value << 1) | b;
+        }
+        return value;
+    }
+}
\ No newline at end of file
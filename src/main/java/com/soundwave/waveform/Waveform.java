@@ -0,0 +1,15 @@
+package com.soundwave.waveform;
+
+/**
+ * Сводка пиков трека для полосы прокрутки: по столбцу — минимум и максимум сигнала
+ * на своём отрезке времени, от -127 до 127. Около 2 КБ на трек.
+ */
+public record Waveform(byte[] min, byte[] max) {
+    public Waveform {
+        if (min.length != max.length) throw new IllegalArgumentException("min и max разной длины");
+    }
+
+    public int columns() {
+        return min.length;
+    }
+}
\ No newline at end of file
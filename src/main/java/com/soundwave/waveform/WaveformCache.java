@@ -0,0 +1,125 @@
+package com.soundwave.waveform;
+
+import com.soundwave.core.Song;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Формы волны для полосы прокрутки. Трек декодируется один раз в фоновом потоке
+ * с низким приоритетом, сводка пиков сохраняется в файл, отображённый в память,
+ * с ключом путь + время изменения. Для уже встречавшихся треков форма волны берётся сразу.
+ * Файл кэша открывается в том же фоновом потоке: пока он не открыт, {@link #getIfCached} просто
+ * ничего не находит, а FX-поток не ждёт диска.
+ */
+public class WaveformCache {
+    private static final Logger logger = LoggerFactory.getLogger(WaveformCache.class);
+
+    private final WaveformStore store;
+    private final PeakExtractor extractor = new PeakExtractor();
+    private final Map<Path, CompletableFuture<Waveform>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waveform");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY); // Декодирование не должно мешать воспроизведению
+        return t;
+    });
+    private volatile boolean storeFailed;
+
+    public WaveformCache(Path file) {
+        this.store = new WaveformStore(file);
+        executor.execute(this::openStore);
+    }
+
+    /**
+     * Форма волны из кэша без декодирования или null, если трек ещё не разбирался (или файл изменился),
+     * а также пока файл кэша не открыт. Можно звать из FX-потока: диск здесь не открывается.
+     */
+    public Waveform getIfCached(Song song) {
+        if (storeFailed || !store.isOpen()) return null;
+        return lookup(song);
+    }
+
+    /**
+     * Форма волны трека. Результат приходит из фонового потока; null — формат не поддерживается.
+     * Кэш проверяется и здесь, в фоне: файл кэша мог открыться уже после промаха {@link #getIfCached}.
+     */
+    public CompletableFuture<Waveform> load(Song song) {
+        Path path = song.filePath();
+        CompletableFuture<Waveform> future = new CompletableFuture<>();
+        CompletableFuture<Waveform> existing = inFlight.putIfAbsent(path, future);
+        if (existing != null) return existing;
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(produce(song));
+                } finally {
+                    inFlight.remove(path, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(path, future);
+            future.complete(null); // Приложение закрывается
+        }
+        return future;
+    }
+
+    /**
+     * Останавливает фоновый поток и закрывает файл кэша. Открыть его заново после этого нельзя.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.warn("Ошибка закрытия кэша форм волны", e);
+        }
+    }
+
+    private void openStore() {
+        try {
+            store.open();
+        } catch (IOException e) {
+            storeFailed = true;
+            logger.error("Кэш форм волны недоступен, формы будут строиться заново", e);
+        }
+    }
+
+    private Waveform lookup(Song song) {
+        try {
+            return store.get(key(song), Files.getLastModifiedTime(song.filePath()).toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Waveform produce(Song song) {
+        try {
+            Waveform cached = storeFailed ? null : lookup(song);
+            if (cached != null) return cached;
+            long modified = Files.getLastModifiedTime(song.filePath()).toMillis();
+            Waveform waveform = extractor.extract(song.filePath());
+            if (waveform != null && !storeFailed && store.isOpen()) {
+                try {
+                    store.put(key(song), modified, waveform);
+                } catch (IOException e) {
+                    storeFailed = true;
+                    logger.error("Кэш форм волны недоступен, формы будут строиться заново", e);
+                }
+            }
+            return waveform;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Не удалось построить форму волны для {}", song.filePath(), e);
+            return null;
+        }
+    }
+
+    private static String key(Song song) {
+        return song.filePath().toAbsolutePath().toString();
+    }
+}
\ No newline at end of file
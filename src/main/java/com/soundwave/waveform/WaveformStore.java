@@ -0,0 +1,218 @@
+package com.soundwave.waveform;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Файл со сводками пиков, отображённый в память. Записи только дописываются в конец:
+ * [длина записи][длина пути][путь UTF-8][mtime][число столбцов][min...][max...].
+ * При открытии строится индекс путь → смещение; устаревшие записи выбрасываются,
+ * когда их становится больше живых. Недописанный хвост (сбой во время записи) отрезается.
+ * {@link #isOpen()} не берёт блокировку: поток интерфейса не ждёт, пока другой поток открывает файл.
+ */
+final class WaveformStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WaveformStore.class);
+
+    private static final int MAGIC = 0x53575746; // "SWWF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MIN_GARBAGE_TO_COMPACT = 64;
+
+    /** offset — начало числа столбцов в файле. */
+    private record Slot(long offset, long modified) {}
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private long end;
+    private int garbage;
+    private boolean closed; // После close() файл больше не открывается
+    private volatile boolean ready; // Выставляется, когда open() закончил чтение индекса и сжатие
+
+    WaveformStore(Path file) {
+        this.file = file;
+    }
+
+    synchronized void open() throws IOException {
+        if (channel != null) return;
+        if (closed) throw new IOException("Кэш форм волны уже закрыт: " + file);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (!readIndex()) {
+                logger.info("Кэш форм волны пуст или несовместим, начинаем заново: {}", file);
+                reset();
+            } else if (garbage > slots.size() && garbage >= MIN_GARBAGE_TO_COMPACT) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    if (channel == null) throw e;
+                    logger.warn("Не удалось сжать кэш форм волны, остаётся прежний файл: {}", file, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closeChannel();
+            slots.clear();
+            throw e;
+        }
+        ready = true;
+    }
+
+    /** Открыт ли файл. Без блокировки: пока open() читает файл, возвращает false. */
+    boolean isOpen() {
+        return ready;
+    }
+
+    /** Сводка для файла с таким временем изменения или null (в том числе если файл не открыт). */
+    synchronized Waveform get(String path, long modified) throws IOException {
+        if (channel == null) return null;
+        Slot slot = slots.get(path);
+        if (slot == null || slot.modified() != modified) return null;
+        if (map == null || map.capacity() < end) map = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+
+        int columns = map.getShort((int) slot.offset()) & 0xffff;
+        byte[] min = new byte[columns];
+        byte[] max = new byte[columns];
+        map.get((int) slot.offset() + 2, min);
+        map.get((int) slot.offset() + 2 + columns, max);
+        return new Waveform(min, max);
+    }
+
+    synchronized void put(String path, long modified, Waveform waveform) throws IOException {
+        if (channel == null) throw new IOException("Кэш форм волны не открыт: " + file);
+        byte[] key = path.getBytes(StandardCharsets.UTF_8);
+        long next = write(channel, end, key, modified, waveform);
+        if (slots.put(path, new Slot(columnsOffset(end, key), modified)) != null) garbage++;
+        end = next;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        ready = false;
+        map = null;
+        FileChannel open = channel;
+        channel = null;
+        if (open != null) open.close();
+    }
+
+    private boolean readIndex() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) return false;
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) return false;
+
+        long pos = HEADER_BYTES;
+        while (pos + 4 <= size) {
+            int length = data.getInt((int) pos);
+            if (length <= 12 || pos + 4 + length > size) break;
+            int keyLength = data.getShort((int) pos + 4) & 0xffff;
+            byte[] key = new byte[keyLength];
+            data.get((int) pos + 6, key);
+            long modified = data.getLong((int) pos + 6 + keyLength);
+            long offset = pos + 6 + keyLength + 8;
+            if (slots.put(new String(key, StandardCharsets.UTF_8), new Slot(offset, modified)) != null) garbage++;
+            pos += 4 + length;
+        }
+        if (pos < size) {
+            logger.warn("Кэш форм волны обрезан до последней целой записи: {}", file);
+            channel.truncate(pos);
+        }
+        end = pos;
+        map = data;
+        return true;
+    }
+
+    private void reset() throws IOException {
+        slots.clear();
+        garbage = 0;
+        map = null;
+        channel.truncate(0);
+        end = writeHeader(channel);
+    }
+
+    /**
+     * Переписывает только живые записи во временный файл и подменяет им кэш. Пока файл не подменён,
+     * сбой оставляет кэш как был; если подменить не удалось, снова открывается прежний файл.
+     */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Slot> compacted = new HashMap<>();
+        long compactedEnd;
+        Files.deleteIfExists(tmp);
+        try (FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            compactedEnd = writeHeader(target);
+            for (Map.Entry<String, Slot> e : slots.entrySet()) {
+                long modified = e.getValue().modified();
+                byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                long offset = compactedEnd;
+                compactedEnd = write(target, offset, key, modified, get(e.getKey(), modified));
+                compacted.put(e.getKey(), new Slot(columnsOffset(offset, key), modified));
+            }
+            target.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        // Отображённый файл не везде можно подменить, поэтому канал закрывается до переноса
+        map = null;
+        channel.close();
+        channel = null;
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            throw e;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int before = garbage;
+        slots.clear();
+        slots.putAll(compacted);
+        end = compactedEnd;
+        garbage = 0;
+        logger.info("Кэш форм волны сжат: выброшено {} устаревших записей", before);
+    }
+
+    private static long writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) target.write(header, header.position());
+        return HEADER_BYTES;
+    }
+
+    /** Пишет запись с позиции offset и возвращает позицию сразу после неё. */
+    private static long write(FileChannel target, long offset, byte[] key, long modified, Waveform waveform)
+            throws IOException {
+        int columns = waveform.columns();
+        int length = 2 + key.length + 8 + 2 + 2 * columns;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length).putShort((short) key.length).put(key).putLong(modified)
+                .putShort((short) columns).put(waveform.min()).put(waveform.max()).flip();
+        long position = offset;
+        while (record.hasRemaining()) position += target.write(record, position);
+        return position;
+    }
+
+    /** Смещение числа столбцов в записи, начинающейся с offset. */
+    private static long columnsOffset(long offset, byte[] key) {
+        return offset + 4 + 2 + key.length + 8;
+    }
+}
\ No newline at end of file
@@ -4,6 +4,16 @@ module com.soundwave {
     requires javafx.fxml;
     requires javafx.media;
 
+    // javax.sound.sampled для собственного движка воспроизведения
+    requires java.desktop;
+
+    // Метрики: JMX и события Flight Recorder
+    requires java.management;
+    requires jdk.jfr;
+
+    // Уровень логов jaudiotagger в консольном режиме
+    requires java.logging;
+
     // Библиотеки для JSON (Jackson)
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.datatype.jsr310; // Исправляет твою ошибку!
@@ -23,4 +33,5 @@ module com.soundwave {
     exports com.soundwave.gui;
     exports com.soundwave.core;
     exports com.soundwave.library;
+    exports com.soundwave.metrics;
 }
\ No newline at end of file